@@ -18,17 +18,30 @@
  */
 package me.myles.discordbotapi.bot;
 
+import java.lang.reflect.Modifier;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nonnull;
 import javax.security.auth.login.LoginException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import me.myles.discordbotapi.data.file.FileManager;
 import me.myles.discordbotapi.event.EventManager;
 import me.myles.discordbotapi.event.command.CommandManager;
+import me.myles.discordbotapi.event.command.CommandTokenizer;
+import me.myles.discordbotapi.event.command.PrefixManager;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
 /**
  * A Discord Bot.
@@ -37,6 +50,17 @@ import net.dv8tion.jda.api.JDABuilder;
  */
 public class Bot {
 
+	/**
+	 * The maximum number of milliseconds to wait for queued events and commands
+	 * when the Bot is stopped.
+	 */
+	public static final long SHUTDOWN_TIMEOUT = 30000;
+
+	/**
+	 * The Bot's logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(Bot.class);
+
 	/**
 	 * The Bot's token.
 	 */
@@ -66,6 +90,25 @@ public class Bot {
 	@Getter
 	private final CommandManager commandManager;
 
+	/**
+	 * The Bot's per-guild prefix manager.
+	 */
+	@Getter
+	private final PrefixManager prefixManager;
+
+	/**
+	 * The Bot's event dispatcher.
+	 */
+	@Getter
+	private final EventDispatcher eventDispatcher;
+
+	/**
+	 * The Bot's command dispatcher, commands run on it so that slow commands do not
+	 * hold up the event dispatcher.
+	 */
+	@Getter
+	private final EventDispatcher commandDispatcher;
+
 	/**
 	 * The Bot's internal command listener.
 	 */
@@ -79,12 +122,52 @@ public class Bot {
 	private final InternalEventListener internalEventListener;
 
 	/**
-	 * The Bot's command prefix.
+	 * The Bot's command prefix, this is used in guilds that do not have their own
+	 * prefixes.
 	 */
 	@Getter
 	@Setter
 	private String prefix;
 
+	/**
+	 * The truth value associated with a mention of the Bot being accepted as a
+	 * command prefix.
+	 */
+	@Getter
+	@Setter
+	private boolean mentionPrefix;
+
+	/**
+	 * The tokenizer used to split messages into commands and their arguments.
+	 */
+	@Getter
+	@Setter
+	private CommandTokenizer commandTokenizer;
+
+	/**
+	 * The gateway intents to use instead of the derived intents, or null to derive
+	 * them from the registered listeners and commands.
+	 */
+	@Getter
+	@Setter
+	private EnumSet<GatewayIntent> gatewayIntents;
+
+	/**
+	 * The cache flags to use instead of the derived cache flags, or null to derive
+	 * them from the gateway intents.
+	 */
+	@Getter
+	@Setter
+	private EnumSet<CacheFlag> cacheFlags;
+
+	/**
+	 * The member cache policy to use instead of the derived policy, or null to
+	 * derive it from the gateway intents.
+	 */
+	@Getter
+	@Setter
+	private MemberCachePolicy memberCachePolicy;
+
 	/**
 	 * Create a new Discord Bot.
 	 * 
@@ -95,8 +178,12 @@ public class Bot {
 		this.token = token;
 		this.prefix = "";
 		this.fileManager = new FileManager();
-		this.eventManager = new EventManager();
+		this.eventDispatcher = new EventDispatcher();
+		this.eventManager = new EventManager(this.eventDispatcher::dispatch);
 		this.commandManager = new CommandManager();
+		this.commandTokenizer = new CommandTokenizer();
+		this.prefixManager = new PrefixManager();
+		this.commandDispatcher = newCommandDispatcher();
 		this.internalEventListener = new InternalEventListener(this);
 		this.internalCommandListener = new InternalCommandListener(this);
 
@@ -113,8 +200,61 @@ public class Bot {
 		this.token = token;
 		this.prefix = prefix;
 		this.fileManager = new FileManager();
-		this.eventManager = new EventManager();
+		this.eventDispatcher = new EventDispatcher();
+		this.eventManager = new EventManager(this.eventDispatcher::dispatch);
+		this.commandManager = new CommandManager();
+		this.commandTokenizer = new CommandTokenizer();
+		this.prefixManager = new PrefixManager();
+		this.commandDispatcher = newCommandDispatcher();
+		this.internalEventListener = new InternalEventListener(this);
+		this.internalCommandListener = new InternalCommandListener(this);
+
+	}
+
+	/**
+	 * Create a new Discord Bot.
+	 * 
+	 * @param token           The bot's token.
+	 * @param prefix          The bot's command prefix.
+	 * @param eventDispatcher The dispatcher that will execute the bot's events.
+	 */
+	public Bot(@Nonnull String token, @Nonnull String prefix, @Nonnull EventDispatcher eventDispatcher) {
+
+		this.token = token;
+		this.prefix = prefix;
+		this.fileManager = new FileManager();
+		this.eventDispatcher = eventDispatcher;
+		this.eventManager = new EventManager(this.eventDispatcher::dispatch);
+		this.commandManager = new CommandManager();
+		this.commandTokenizer = new CommandTokenizer();
+		this.prefixManager = new PrefixManager();
+		this.commandDispatcher = newCommandDispatcher();
+		this.internalEventListener = new InternalEventListener(this);
+		this.internalCommandListener = new InternalCommandListener(this);
+
+	}
+
+	/**
+	 * Create a new Discord Bot.
+	 * 
+	 * @param token             The bot's token.
+	 * @param prefix            The bot's command prefix.
+	 * @param eventDispatcher   The dispatcher that will execute the bot's events.
+	 * @param commandDispatcher The dispatcher that will execute the bot's
+	 *                          commands.
+	 */
+	public Bot(@Nonnull String token, @Nonnull String prefix, @Nonnull EventDispatcher eventDispatcher,
+			@Nonnull EventDispatcher commandDispatcher) {
+
+		this.token = token;
+		this.prefix = prefix;
+		this.fileManager = new FileManager();
+		this.eventDispatcher = eventDispatcher;
+		this.eventManager = new EventManager(this.eventDispatcher::dispatch);
 		this.commandManager = new CommandManager();
+		this.commandTokenizer = new CommandTokenizer();
+		this.prefixManager = new PrefixManager();
+		this.commandDispatcher = commandDispatcher;
 		this.internalEventListener = new InternalEventListener(this);
 		this.internalCommandListener = new InternalCommandListener(this);
 
@@ -127,25 +267,213 @@ public class Bot {
 	 * <strong>Note:</strong> this will block the thread until the bot is connected.
 	 * </p>
 	 * 
+	 * <p>
+	 * Unless they have been set, the gateway intents, cache flags and member cache
+	 * policy are derived from the listeners and commands that are registered when
+	 * the Bot is started. Listeners and commands should be registered first.
+	 * </p>
+	 * 
 	 * @throws LoginException If there was an issue logging into the Bot.
 	 * @throws InterruptedException If the thread was inturrupted.
 	 */
 	public synchronized void start() throws LoginException, InterruptedException {
 
-		JDABuilder builder = JDABuilder.createDefault(token);
+		this.eventDispatcher.start();
+		this.commandDispatcher.start();
+
+		EnumSet<GatewayIntent> intents = this.gatewayIntents != null ? this.gatewayIntents
+				: this.resolveGatewayIntents();
+		EnumSet<CacheFlag> flags = this.cacheFlags != null ? this.cacheFlags : this.resolveCacheFlags(intents);
+
+		JDABuilder builder = JDABuilder.create(token, intents);
+		builder.enableCache(flags);
+		builder.disableCache(EnumSet.complementOf(flags));
+		builder.setMemberCachePolicy(
+				this.memberCachePolicy != null ? this.memberCachePolicy : this.resolveMemberCachePolicy(intents));
 		builder.addEventListeners(this.getInternalEventListener());
 		this.discordAPI = builder.build();
 		this.discordAPI.awaitReady();
 
 	}
 
+	/**
+	 * Derive the minimal gateway intents from the registered listeners and
+	 * commands.
+	 * 
+	 * <p>
+	 * If a listener handles a broad event type that can not be narrowed down,
+	 * such as {@link net.dv8tion.jda.api.events.GenericEvent GenericEvent}, the
+	 * default (non-privileged) intents are used for it.
+	 * </p>
+	 * 
+	 * @return The derived gateway intents.
+	 */
+	public EnumSet<GatewayIntent> resolveGatewayIntents() {
+
+		EnumSet<GatewayIntent> intents = EnumSet.noneOf(GatewayIntent.class);
+
+		// Commands are parsed from messages.
+		if (this.commandManager.getCommandCount() > 0) {
+
+			intents.add(GatewayIntent.GUILD_MESSAGES);
+			intents.add(GatewayIntent.DIRECT_MESSAGES);
+
+		}
+
+		for (Class<? extends GenericEvent> type : this.eventManager.getSubscribedEventTypes()) {
+
+			EnumSet<GatewayIntent> derived = GatewayIntent.fromEvents(type);
+
+			if (derived.isEmpty() && isBroadEventType(type))
+				intents.addAll(GatewayIntent.getIntents(GatewayIntent.DEFAULT));
+			else
+				intents.addAll(derived);
+
+		}
+
+		return intents;
+
+	}
+
+	/**
+	 * Derive the cache flags that can be enabled with a set of gateway intents.
+	 * 
+	 * <p>
+	 * Flags that do not require an intent, such as
+	 * {@link net.dv8tion.jda.api.utils.cache.CacheFlag#MEMBER_OVERRIDES
+	 * MEMBER_OVERRIDES}, are always enabled.
+	 * </p>
+	 * 
+	 * @param intents The gateway intents.
+	 * 
+	 * @return The cache flags whose required intent is enabled, or that do not
+	 *         require an intent.
+	 */
+	public EnumSet<CacheFlag> resolveCacheFlags(@Nonnull EnumSet<GatewayIntent> intents) {
+
+		EnumSet<CacheFlag> flags = EnumSet.noneOf(CacheFlag.class);
+
+		for (CacheFlag flag : CacheFlag.values())
+			if (flag.getRequiredIntent() == null || intents.contains(flag.getRequiredIntent()))
+				flags.add(flag);
+
+		return flags;
+
+	}
+
+	/**
+	 * Derive the member cache policy for a set of gateway intents.
+	 * 
+	 * @param intents The gateway intents.
+	 * 
+	 * @return The member cache policy.
+	 */
+	public MemberCachePolicy resolveMemberCachePolicy(@Nonnull EnumSet<GatewayIntent> intents) {
+
+		if (intents.contains(GatewayIntent.GUILD_MEMBERS))
+			return MemberCachePolicy.DEFAULT;
+
+		if (intents.contains(GatewayIntent.GUILD_VOICE_STATES))
+			return MemberCachePolicy.VOICE.or(MemberCachePolicy.OWNER);
+
+		return MemberCachePolicy.OWNER;
+
+	}
+
+	/**
+	 * Check if an event type is a broad JDA event type that covers events needing
+	 * many different intents.
+	 * 
+	 * @param type The event type.
+	 * 
+	 * @return The truth value associated with the type being a broad event type.
+	 */
+	private static boolean isBroadEventType(@Nonnull Class<?> type) {
+
+		return (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+				&& type.getName().startsWith("net.dv8tion.jda.");
+
+	}
+
 	/**
 	 * Stop the Bot.
+	 * 
+	 * <p>
+	 * Events and commands that are already queued are given up to
+	 * {@link #SHUTDOWN_TIMEOUT} milliseconds to finish before the registered files
+	 * are flushed, so their changes are saved. Partial event batches are
+	 * delivered once the queued events have been handled.
+	 * </p>
 	 */
 	public synchronized void stop() {
 
 		this.getDiscordAPI().shutdown();
 
+		try {
+
+			// Events can run commands, so the event dispatcher is drained first.
+			long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+
+			this.eventDispatcher.shutdown();
+			awaitTermination(this.eventDispatcher, deadline);
+
+			// The queued events may have started new batches, so they are delivered once
+			// the events have been handled.
+			this.eventManager.flushBatches();
+
+			this.commandDispatcher.shutdown();
+			awaitTermination(this.commandDispatcher, deadline);
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+
+		}
+
+		this.fileManager.stopWatching();
+		this.fileManager.flushAll();
+
+	}
+
+	/**
+	 * Wait for a dispatcher to finish its queued tasks.
+	 * 
+	 * @param dispatcher The dispatcher.
+	 * @param deadline   The time to stop waiting at, in milliseconds since the
+	 *                   epoch.
+	 * 
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	private static void awaitTermination(EventDispatcher dispatcher, long deadline) throws InterruptedException {
+
+		if (!dispatcher.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS))
+			LOGGER.warn("The {} did not finish its queued tasks before the bot stopped", dispatcher.getName());
+
+	}
+
+	/**
+	 * Create the default command dispatcher.
+	 * 
+	 * <p>
+	 * Commands run on the caller's thread when the queue is full, so that a command
+	 * is never silently dropped while holding a
+	 * {@link me.myles.discordbotapi.event.command.Bulkhead Bulkhead} permit.
+	 * </p>
+	 * 
+	 * <p>
+	 * Commands often block on REST calls, so they run on virtual threads when the
+	 * JVM supports them.
+	 * </p>
+	 * 
+	 * @return The command dispatcher.
+	 */
+	private static EventDispatcher newCommandDispatcher() {
+
+		DispatchMode mode = VirtualThreads.isSupported() ? DispatchMode.VIRTUAL : DispatchMode.CONCURRENT;
+
+		return new EventDispatcher(Runtime.getRuntime().availableProcessors(), EventDispatcher.DEFAULT_QUEUE_CAPACITY,
+				RejectionPolicy.CALLER_RUNS, mode, "CommandDispatcher");
+
 	}
 
 }
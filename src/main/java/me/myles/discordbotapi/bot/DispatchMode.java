@@ -0,0 +1,65 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.bot;
+
+/**
+ * The modes an {@link me.myles.discordbotapi.bot.EventDispatcher
+ * EventDispatcher} can execute events in.
+ * 
+ * @author Myles Deslippe
+ */
+public enum DispatchMode {
+
+	/**
+	 * Events are executed by any available worker, so two events from the same
+	 * guild may be handled out of order.
+	 */
+	CONCURRENT,
+
+	/**
+	 * Events are hashed by guild, or by channel for private messages, onto a
+	 * fixed set of serial lanes. Events from the same guild are handled in the
+	 * order they were received, while different guilds are spread across the
+	 * lanes.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The
+	 * {@link me.myles.discordbotapi.bot.RejectionPolicy#CALLER_RUNS CALLER_RUNS}
+	 * policy can not be used in this mode, because events run by the caller would
+	 * overtake the events queued ahead of them. Use
+	 * {@link me.myles.discordbotapi.bot.RejectionPolicy#BLOCK BLOCK} to keep every
+	 * event in order when the lanes are full.
+	 * </p>
+	 */
+	ORDERED,
+
+	/**
+	 * Every event is executed on its own virtual thread, so handlers that block
+	 * on I/O do not tie up a platform thread. The queue capacity limits how many
+	 * events can be in flight at once.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Virtual threads require Java 21 or newer, on older
+	 * versions the dispatcher will fall back to the
+	 * {@link me.myles.discordbotapi.bot.DispatchMode#CONCURRENT CONCURRENT} mode.
+	 * </p>
+	 */
+	VIRTUAL;
+
+}
@@ -0,0 +1,842 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.bot;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.text.GenericTextChannelEvent;
+import net.dv8tion.jda.api.events.channel.voice.GenericVoiceChannelEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.message.priv.GenericPrivateMessageEvent;
+import net.dv8tion.jda.api.events.role.GenericRoleEvent;
+
+/**
+ * The event dispatcher for Discord {@link me.myles.discordbotapi.bot.Bot
+ * Bot}'s.
+ * 
+ * <p>
+ * Events are executed on a bounded pool of worker threads that pull from a
+ * bounded queue. When the queue is full, the dispatcher's
+ * {@link me.myles.discordbotapi.bot.RejectionPolicy RejectionPolicy} decides
+ * what happens to the event.
+ * </p>
+ * 
+ * <p>
+ * In the {@link me.myles.discordbotapi.bot.DispatchMode#ORDERED ORDERED} mode
+ * each worker owns its own lane, and events are routed to a lane by their
+ * guild so that a guild's events are handled in order.
+ * </p>
+ * 
+ * <p>
+ * Tasks submitted through {@link #execute(Runnable)} are never dropped
+ * silently, a {@link java.util.concurrent.RejectedExecutionException
+ * RejectedExecutionException} is thrown instead so that the caller can release
+ * anything it reserved for the task.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class EventDispatcher implements Executor {
+
+	/**
+	 * The default capacity of the dispatch queue.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+	/**
+	 * The dispatcher's logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatcher.class);
+
+	/**
+	 * The name of the dispatcher, this prefixes the names of its threads.
+	 */
+	@Getter
+	private final String name;
+
+	/**
+	 * The number of worker threads.
+	 */
+	@Getter
+	private final int threads;
+
+	/**
+	 * The capacity of the dispatch queue.
+	 */
+	@Getter
+	private final int queueCapacity;
+
+	/**
+	 * The policy applied when the dispatch queue is full.
+	 */
+	@Getter
+	private final RejectionPolicy rejectionPolicy;
+
+	/**
+	 * The mode events are executed in.
+	 */
+	@Getter
+	private final DispatchMode dispatchMode;
+
+	/**
+	 * The number of events that were rejected because the queue was full.
+	 */
+	private final AtomicLong rejected;
+
+	/**
+	 * The worker pools, this will be null while the dispatcher is not running.
+	 * 
+	 * <p>
+	 * There is a single shared pool in the
+	 * {@link me.myles.discordbotapi.bot.DispatchMode#CONCURRENT CONCURRENT} mode,
+	 * and one single threaded pool per lane in the
+	 * {@link me.myles.discordbotapi.bot.DispatchMode#ORDERED ORDERED} mode.
+	 * </p>
+	 */
+	private volatile ThreadPoolExecutor[] executors;
+
+	/**
+	 * The virtual thread executor, this will be null unless the dispatcher is
+	 * running in the {@link me.myles.discordbotapi.bot.DispatchMode#VIRTUAL
+	 * VIRTUAL} mode.
+	 */
+	private volatile ExecutorService virtualExecutor;
+
+	/**
+	 * The permits limiting the number of events in flight on virtual threads.
+	 */
+	private final Semaphore inFlight;
+
+	/**
+	 * The executors that have been shut down but may still be executing events.
+	 */
+	private final List<ExecutorService> terminating;
+
+	/**
+	 * Create an event dispatcher with one worker per available processor.
+	 */
+	public EventDispatcher() {
+
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, RejectionPolicy.CALLER_RUNS);
+
+	}
+
+	/**
+	 * Create an event dispatcher.
+	 * 
+	 * @param threads         The number of worker threads.
+	 * @param queueCapacity   The capacity of the dispatch queue.
+	 * @param rejectionPolicy The policy to apply when the dispatch queue is full.
+	 */
+	public EventDispatcher(int threads, int queueCapacity, @Nonnull RejectionPolicy rejectionPolicy) {
+
+		this(threads, queueCapacity, rejectionPolicy, DispatchMode.CONCURRENT);
+
+	}
+
+	/**
+	 * Create an event dispatcher.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> In the
+	 * {@link me.myles.discordbotapi.bot.DispatchMode#ORDERED ORDERED} mode the
+	 * queue capacity is split evenly between the lanes, and the
+	 * {@link me.myles.discordbotapi.bot.RejectionPolicy#CALLER_RUNS CALLER_RUNS}
+	 * policy can not be used because it would let events overtake the events
+	 * queued ahead of them.
+	 * </p>
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> In the
+	 * {@link me.myles.discordbotapi.bot.DispatchMode#VIRTUAL VIRTUAL} mode the
+	 * number of threads is ignored, and the queue capacity limits the number of
+	 * events in flight.
+	 * </p>
+	 * 
+	 * @param threads         The number of worker threads.
+	 * @param queueCapacity   The capacity of the dispatch queue.
+	 * @param rejectionPolicy The policy to apply when the dispatch queue is full.
+	 * @param dispatchMode    The mode to execute events in.
+	 */
+	public EventDispatcher(int threads, int queueCapacity, @Nonnull RejectionPolicy rejectionPolicy,
+			@Nonnull DispatchMode dispatchMode) {
+
+		this(threads, queueCapacity, rejectionPolicy, dispatchMode, "EventDispatcher");
+
+	}
+
+	/**
+	 * Create a named event dispatcher.
+	 * 
+	 * @param threads         The number of worker threads.
+	 * @param queueCapacity   The capacity of the dispatch queue.
+	 * @param rejectionPolicy The policy to apply when the dispatch queue is full.
+	 * @param dispatchMode    The mode to execute events in.
+	 * @param name            The name of the dispatcher, this prefixes the names
+	 *                        of its threads.
+	 * 
+	 * @see #EventDispatcher(int, int, RejectionPolicy, DispatchMode)
+	 */
+	public EventDispatcher(int threads, int queueCapacity, @Nonnull RejectionPolicy rejectionPolicy,
+			@Nonnull DispatchMode dispatchMode, @Nonnull String name) {
+
+		if (threads < 1)
+			throw new IllegalArgumentException("Error: The dispatcher requires at least one thread!");
+
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("Error: The dispatch queue capacity must be positive!");
+
+		if (dispatchMode == DispatchMode.ORDERED && rejectionPolicy == RejectionPolicy.CALLER_RUNS)
+			throw new IllegalArgumentException("Error: The ordered dispatch mode can not run events on the caller!");
+
+		this.name = name;
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+		this.rejectionPolicy = rejectionPolicy;
+		this.dispatchMode = dispatchMode;
+		this.rejected = new AtomicLong();
+		this.inFlight = new Semaphore(queueCapacity);
+		this.terminating = new ArrayList<ExecutorService>();
+
+	}
+
+	/**
+	 * Start the dispatcher.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Calling this while the dispatcher is running has no
+	 * effect.
+	 * </p>
+	 */
+	public synchronized void start() {
+
+		if (this.executors != null || this.virtualExecutor != null)
+			return;
+
+		if (this.dispatchMode == DispatchMode.VIRTUAL) {
+
+			if (VirtualThreads.isSupported()) {
+
+				this.virtualExecutor = VirtualThreads.newExecutor(this.name + "-Virtual-");
+				return;
+
+			}
+
+			LOGGER.warn("Virtual threads require Java 21 or newer, falling back to the {} dispatch mode",
+					DispatchMode.CONCURRENT);
+
+		}
+
+		DispatcherThreadFactory factory = new DispatcherThreadFactory(this.name);
+		DispatcherRejectionHandler handler = new DispatcherRejectionHandler();
+
+		if (this.dispatchMode == DispatchMode.ORDERED) {
+
+			ThreadPoolExecutor[] lanes = new ThreadPoolExecutor[this.threads];
+			int laneCapacity = Math.max(1, this.queueCapacity / this.threads);
+
+			for (int i = 0; i < lanes.length; i++)
+				lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+						new ArrayBlockingQueue<Runnable>(laneCapacity), factory, handler);
+
+			this.executors = lanes;
+
+		} else {
+
+			this.executors = new ThreadPoolExecutor[] { new ThreadPoolExecutor(this.threads, this.threads, 0L,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(this.queueCapacity), factory, handler) };
+
+		}
+
+	}
+
+	/**
+	 * Stop the dispatcher.
+	 * 
+	 * <p>
+	 * Events that are already queued will still be executed, but no new events
+	 * will be accepted.
+	 * </p>
+	 */
+	public synchronized void shutdown() {
+
+		if (this.virtualExecutor != null) {
+
+			this.virtualExecutor.shutdown();
+			this.terminating.add(this.virtualExecutor);
+			this.virtualExecutor = null;
+
+		}
+
+		if (this.executors != null) {
+
+			for (ThreadPoolExecutor executor : this.executors) {
+
+				executor.shutdown();
+				this.terminating.add(executor);
+
+			}
+
+			this.executors = null;
+
+		}
+
+	}
+
+	/**
+	 * Wait for the events that were queued before the dispatcher was shut down to
+	 * finish executing.
+	 * 
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of the timeout.
+	 * 
+	 * @return The truth value associated with every event having finished, false
+	 *         if the timeout elapsed first.
+	 * 
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public synchronized boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		Iterator<ExecutorService> iterator = this.terminating.iterator();
+
+		while (iterator.hasNext()) {
+
+			if (!iterator.next().awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+				return false;
+
+			iterator.remove();
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Check if the dispatcher is running.
+	 * 
+	 * @return The truth value associated with the dispatcher running.
+	 */
+	public boolean isRunning() {
+
+		return this.executors != null || this.virtualExecutor != null;
+
+	}
+
+	/**
+	 * Dispatch a task.
+	 * 
+	 * <p>
+	 * If the dispatcher is not running, the task will be executed on the calling
+	 * thread.
+	 * </p>
+	 * 
+	 * @param task The task to dispatch.
+	 */
+	public void dispatch(@Nonnull Runnable task) {
+
+		ExecutorService virtualExecutor = this.virtualExecutor;
+
+		if (virtualExecutor != null) {
+
+			this.dispatchVirtual(virtualExecutor, task);
+			return;
+
+		}
+
+		ThreadPoolExecutor[] executors = this.executors;
+
+		if (executors == null)
+			run(task);
+		else
+			executors[0].execute(() -> run(task));
+
+	}
+
+	/**
+	 * Dispatch a task on behalf of an event.
+	 * 
+	 * <p>
+	 * In the {@link me.myles.discordbotapi.bot.DispatchMode#ORDERED ORDERED} mode
+	 * the task is queued on the event's lane, otherwise this is the same as
+	 * {@link #dispatch(Runnable)}.
+	 * </p>
+	 * 
+	 * @param event The event the task is handling.
+	 * @param task  The task to dispatch.
+	 */
+	public void dispatch(@Nonnull GenericEvent event, @Nonnull Runnable task) {
+
+		ExecutorService virtualExecutor = this.virtualExecutor;
+
+		if (virtualExecutor != null) {
+
+			this.dispatchVirtual(virtualExecutor, task);
+			return;
+
+		}
+
+		ThreadPoolExecutor[] executors = this.executors;
+
+		if (executors == null)
+			run(task);
+		else
+			executors[laneOf(orderingKey(event), executors.length)].execute(() -> run(task));
+
+	}
+
+	/**
+	 * Execute a task, failing if the dispatcher drops it.
+	 * 
+	 * <p>
+	 * This is the same as {@link #dispatch(Runnable)}, except that a task the
+	 * rejection policy or a shut down pool would drop is rejected instead. Under
+	 * the {@link me.myles.discordbotapi.bot.RejectionPolicy#DISCARD_OLDEST
+	 * DISCARD_OLDEST} policy the oldest queued task that was not submitted through
+	 * this method is discarded, and if there is none the new task is rejected.
+	 * </p>
+	 * 
+	 * @param task The task to execute.
+	 * 
+	 * @throws RejectedExecutionException If the task was not accepted.
+	 */
+	@Override
+	public void execute(@Nonnull Runnable task) {
+
+		ExecutorService virtualExecutor = this.virtualExecutor;
+
+		if (virtualExecutor != null) {
+
+			if (!this.dispatchVirtual(virtualExecutor, task))
+				throw new RejectedExecutionException("Error: The " + this.name + " rejected the task!");
+
+			return;
+
+		}
+
+		ThreadPoolExecutor[] executors = this.executors;
+
+		if (executors == null)
+			run(task);
+		else
+			executors[0].execute(new ExecutedTask(task));
+
+	}
+
+	/**
+	 * Dispatch a task on a virtual thread, applying the rejection policy if too
+	 * many events are already in flight.
+	 * 
+	 * @param executor The virtual thread executor.
+	 * @param task     The task to dispatch.
+	 * 
+	 * @return The truth value associated with the task being accepted, false if it
+	 *         was dropped.
+	 */
+	private boolean dispatchVirtual(@Nonnull ExecutorService executor, @Nonnull Runnable task) {
+
+		if (!this.inFlight.tryAcquire()) {
+
+			this.rejected.incrementAndGet();
+
+			switch (this.rejectionPolicy) {
+
+			case BLOCK:
+
+				this.inFlight.acquireUninterruptibly();
+				break;
+
+			case CALLER_RUNS:
+
+				run(task);
+				return true;
+
+			// There is no queue to discard from, so the oldest event can not be
+			// discarded in place of the new one.
+			case DISCARD_OLDEST:
+			case DISCARD:
+			default:
+
+				return false;
+
+			}
+
+		}
+
+		try {
+
+			executor.execute(() -> {
+
+				try {
+
+					run(task);
+
+				} finally {
+
+					this.inFlight.release();
+
+				}
+
+			});
+
+		} catch (RejectedExecutionException e) {
+
+			this.inFlight.release();
+			return false;
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Get the number of events waiting in the dispatch queue.
+	 * 
+	 * <p>
+	 * In the {@link me.myles.discordbotapi.bot.DispatchMode#VIRTUAL VIRTUAL} mode
+	 * this is the number of events in flight.
+	 * </p>
+	 * 
+	 * @return The number of queued events.
+	 */
+	public int getQueueDepth() {
+
+		if (this.virtualExecutor != null)
+			return this.queueCapacity - this.inFlight.availablePermits();
+
+		ThreadPoolExecutor[] executors = this.executors;
+		int depth = 0;
+
+		if (executors != null)
+			for (ThreadPoolExecutor executor : executors)
+				depth += executor.getQueue().size();
+
+		return depth;
+
+	}
+
+	/**
+	 * Get the number of worker threads that are currently executing events.
+	 * 
+	 * @return The number of active worker threads.
+	 */
+	public int getActiveCount() {
+
+		if (this.virtualExecutor != null)
+			return this.queueCapacity - this.inFlight.availablePermits();
+
+		ThreadPoolExecutor[] executors = this.executors;
+		int active = 0;
+
+		if (executors != null)
+			for (ThreadPoolExecutor executor : executors)
+				active += executor.getActiveCount();
+
+		return active;
+
+	}
+
+	/**
+	 * Get the number of events that were rejected because the dispatch queue was
+	 * full.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Events that were executed on the calling thread or
+	 * that were queued after blocking are still counted.
+	 * </p>
+	 * 
+	 * @return The number of rejected events.
+	 */
+	public long getRejectedCount() {
+
+		return this.rejected.get();
+
+	}
+
+	/**
+	 * Get the key that orders an event.
+	 * 
+	 * <p>
+	 * Events that belong to a guild are keyed by the guild, private messages are
+	 * keyed by their channel, and any other event is keyed by its response number
+	 * so that unrelated events are spread across the lanes.
+	 * </p>
+	 * 
+	 * @param event The event.
+	 * 
+	 * @return The event's ordering key.
+	 */
+	private static long orderingKey(@Nonnull GenericEvent event) {
+
+		if (event instanceof GenericGuildEvent)
+			return ((GenericGuildEvent) event).getGuild().getIdLong();
+
+		if (event instanceof GenericMessageEvent) {
+
+			GenericMessageEvent message = (GenericMessageEvent) event;
+			return message.isFromGuild() ? message.getGuild().getIdLong() : message.getChannel().getIdLong();
+
+		}
+
+		if (event instanceof GenericPrivateMessageEvent)
+			return ((GenericPrivateMessageEvent) event).getChannel().getIdLong();
+
+		if (event instanceof GenericRoleEvent)
+			return ((GenericRoleEvent) event).getGuild().getIdLong();
+
+		if (event instanceof GenericTextChannelEvent)
+			return ((GenericTextChannelEvent) event).getGuild().getIdLong();
+
+		if (event instanceof GenericVoiceChannelEvent)
+			return ((GenericVoiceChannelEvent) event).getGuild().getIdLong();
+
+		return event.getResponseNumber();
+
+	}
+
+	/**
+	 * Map an ordering key onto a lane.
+	 * 
+	 * @param key   The ordering key.
+	 * @param lanes The number of lanes.
+	 * 
+	 * @return The lane the key belongs to.
+	 */
+	private static int laneOf(long key, int lanes) {
+
+		if (lanes == 1)
+			return 0;
+
+		// Snowflakes are mostly timestamp, so mix the bits before reducing them.
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) ((mixed >>> 33) % lanes);
+
+	}
+
+	/**
+	 * Run a task, logging anything it throws so the worker survives.
+	 * 
+	 * @param task The task to run.
+	 */
+	private static void run(Runnable task) {
+
+		try {
+
+			task.run();
+
+		} catch (Throwable e) {
+
+			LOGGER.error("An event handler threw an uncaught exception", e);
+
+		}
+
+	}
+
+	/**
+	 * A task submitted through {@link EventDispatcher#execute(Runnable)}.
+	 */
+	private static final class ExecutedTask implements Runnable {
+
+		/**
+		 * The task to run.
+		 */
+		private final Runnable task;
+
+		/**
+		 * Create an executed task.
+		 * 
+		 * @param task The task to run.
+		 */
+		private ExecutedTask(Runnable task) {
+
+			this.task = task;
+
+		}
+
+		@Override
+		public void run() {
+
+			EventDispatcher.run(this.task);
+
+		}
+
+	}
+
+	/**
+	 * Names the dispatcher's worker threads.
+	 */
+	private static final class DispatcherThreadFactory implements ThreadFactory {
+
+		/**
+		 * The prefix of the thread names.
+		 */
+		private final String name;
+
+		/**
+		 * The number of threads created by the factory.
+		 */
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * Create a thread factory.
+		 * 
+		 * @param name The prefix of the thread names.
+		 */
+		private DispatcherThreadFactory(String name) {
+
+			this.name = name;
+
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+
+			Thread thread = new Thread(runnable, this.name + "-Worker-" + this.count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+
+		}
+
+	}
+
+	/**
+	 * Applies the dispatcher's rejection policy.
+	 */
+	private final class DispatcherRejectionHandler implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+
+			rejected.incrementAndGet();
+
+			// Tasks submitted through execute must hear about being dropped.
+			boolean strict = task instanceof ExecutedTask;
+
+			if (executor.isShutdown()) {
+
+				if (strict)
+					throw new RejectedExecutionException("Error: The " + name + " has been shut down!");
+
+				return;
+
+			}
+
+			switch (rejectionPolicy) {
+
+			case BLOCK:
+
+				try {
+
+					executor.getQueue().put(task);
+
+				} catch (InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+
+					if (strict)
+						throw new RejectedExecutionException("Error: The " + name + " was interrupted!", e);
+
+				}
+
+				break;
+
+			case CALLER_RUNS:
+
+				task.run();
+				break;
+
+			case DISCARD_OLDEST:
+
+				if (discardOldest(executor.getQueue())) {
+
+					executor.execute(task);
+					break;
+
+				}
+
+				if (strict)
+					throw new RejectedExecutionException("Error: The " + name + " rejected the task!");
+
+				break;
+
+			case DISCARD:
+			default:
+
+				if (strict)
+					throw new RejectedExecutionException("Error: The " + name + " rejected the task!");
+
+				break;
+
+			}
+
+		}
+
+		/**
+		 * Discard the oldest queued task that was not submitted through
+		 * {@link EventDispatcher#execute(Runnable)}.
+		 * 
+		 * @param queue The queue to discard from.
+		 * 
+		 * @return The truth value associated with a task being discarded.
+		 */
+		private boolean discardOldest(BlockingQueue<Runnable> queue) {
+
+			Iterator<Runnable> iterator = queue.iterator();
+
+			while (iterator.hasNext()) {
+
+				if (iterator.next() instanceof ExecutedTask)
+					continue;
+
+				iterator.remove();
+				return true;
+
+			}
+
+			return false;
+
+		}
+
+	}
+
+}
@@ -18,10 +18,10 @@
  */
 package me.myles.discordbotapi.bot;
 
-import java.util.Arrays;
-
 import me.myles.discordbotapi.event.command.Command;
-import me.myles.discordbotapi.utils.Utils;
+import me.myles.discordbotapi.event.command.CommandArguments;
+import me.myles.discordbotapi.event.command.CommandTokenizer;
+import me.myles.discordbotapi.event.command.CommandTokens;
 
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
@@ -48,6 +48,55 @@ public class InternalCommandListener {
 
 	}
 
+	/**
+	 * Find where the command label starts in a message.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> This does not allocate, so it is cheap enough to run
+	 * on the gateway thread for every message.
+	 * </p>
+	 * 
+	 * @param event The event containing the message.
+	 * 
+	 * @return The position of the command label, or -1 if the message is not a
+	 *         command.
+	 */
+	protected int findCommand(MessageReceivedEvent event) {
+
+		String content = event.getMessage().getContentRaw();
+		String prefix = this.bot.getPrefix();
+
+		int start;
+
+		if (event.isFromGuild())
+			start = this.bot.getPrefixManager().match(event.getGuild().getIdLong(), content, prefix);
+		else
+			start = CommandTokenizer.isCommand(content, prefix) ? prefix.length() : -1;
+
+		if (start >= 0)
+			return start;
+
+		if (this.bot.isMentionPrefix())
+			return skipMention(content, event.getJDA().getSelfUser().getIdLong());
+
+		return -1;
+
+	}
+
+	/**
+	 * Dispatch a command.
+	 * 
+	 * @param event The event containing the command.
+	 */
+	protected void dispatchCommand(MessageReceivedEvent event) {
+
+		int start = this.findCommand(event);
+
+		if (start >= 0)
+			this.dispatchCommand(event, start);
+
+	}
+
 	/**
 	 * Dispatch a command.
 	 * 
@@ -56,34 +105,82 @@ public class InternalCommandListener {
 	 * </p>
 	 * 
 	 * @param event The event containing the command.
+	 * @param start The position of the command label, as returned by
+	 *              {@link #findCommand(MessageReceivedEvent)}.
 	 */
-	protected void dispatchCommand(MessageReceivedEvent event) {
-		
-		String[] args = event.getMessage().getContentRaw().split(" ");
-		
-		if (!args[0].startsWith(this.bot.getPrefix()))
+	protected void dispatchCommand(MessageReceivedEvent event, int start) {
+
+		CommandTokens tokens = this.bot.getCommandTokenizer().tokenize(event.getMessage().getContentRaw(), start);
+
+		if (tokens.size() == 0)
 			return;
-		else
-			args[0] = args[0].substring(bot.getPrefix().length());
 
-		for (Command command : bot.getCommandManager().getAllCommands()) {
+		String label = tokens.get(0);
+
+		Command command = bot.getCommandManager().getCommand(label);
+
+		if (command == null)
+			return;
+
+		command.executeCommand(
+				event.isFromGuild() ? event.getGuild() : null,
+				event.getMessage().getChannel(),
+				event.getAuthor(),
+				event.getMember(),
+				label,
+				CommandArguments.of(tokens, 1),
+				this.bot.getCommandDispatcher(),
+				this.bot.getCommandManager().getMemberCache()
+				);
+
+	}
+
+	/**
+	 * Skip a mention of the bot at the start of a message, in the form
+	 * {@code <@id>} or {@code <@!id>}.
+	 * 
+	 * @param content The content of the message.
+	 * @param selfId  The bot's user id.
+	 * 
+	 * @return The position of the first character after the mention and any
+	 *         whitespace, or -1 if the message does not start with a mention of
+	 *         the bot followed by a label.
+	 */
+	private static int skipMention(String content, long selfId) {
+
+		int length = content.length();
+
+		if (length < 4 || content.charAt(0) != '<' || content.charAt(1) != '@')
+			return -1;
 
-			if (command.getName().equalsIgnoreCase(args[0]) || Utils.strArrContainsStr(command.getAliases(), args[0])) {
+		int position = content.charAt(2) == '!' ? 3 : 2;
+		int digits = 0;
+		long id = 0;
 
-				command.executeCommand(
-						event.isFromGuild() ? event.getGuild() : null,
-						event.getMessage().getChannel(),
-						event.getAuthor(),
-						args[0],
-						Arrays.copyOfRange(args, 1, args.length)
-						);
-				
-				continue;
+		// A snowflake never has more than 19 digits, so the id can not overflow.
+		while (position < length && digits < 20) {
 
-			}
+			char character = content.charAt(position);
+
+			if (character < '0' || character > '9')
+				break;
+
+			id = id * 10 + (character - '0');
+			digits++;
+			position++;
 
 		}
 
+		if (digits == 0 || digits > 19 || position >= length || content.charAt(position) != '>' || id != selfId)
+			return -1;
+
+		position++;
+
+		while (position < length && Character.isWhitespace(content.charAt(position)))
+			position++;
+
+		return position < length ? position : -1;
+
 	}
 
 }
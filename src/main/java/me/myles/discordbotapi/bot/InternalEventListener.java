@@ -18,7 +18,17 @@
  */
 package me.myles.discordbotapi.bot;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.myles.discordbotapi.event.command.MemberCache;
 import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
 
@@ -29,6 +39,11 @@ import net.dv8tion.jda.api.hooks.EventListener;
  */
 public class InternalEventListener implements EventListener {
 
+	/**
+	 * The internal event listener's logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(InternalEventListener.class);
+
 	/**
 	 * The Bot the internal event listener is bound to.
 	 */
@@ -47,17 +62,72 @@ public class InternalEventListener implements EventListener {
 
 	/**
 	 * Dispatch in-bound events.
+	 * 
+	 * <p>
+	 * Messages are checked for a command on the calling thread, and events that
+	 * are neither a command nor handled by a listener are dropped before being
+	 * handed to the dispatcher.
+	 * </p>
+	 * 
+	 * <p>
+	 * Events that change a member's roles invalidate the member in the command
+	 * manager's {@link me.myles.discordbotapi.event.command.MemberCache
+	 * MemberCache}.
+	 * </p>
 	 */
 	public void onEvent(GenericEvent event) {
 
-		new Thread(() -> {
+		if (event instanceof GuildMemberRoleAddEvent || event instanceof GuildMemberRoleRemoveEvent)
+			this.invalidateMember(((GenericGuildMemberEvent) event).getGuild().getIdLong(),
+					((GenericGuildMemberEvent) event).getUser().getIdLong());
+		else if (event instanceof GuildMemberRemoveEvent)
+			this.invalidateMember(((GuildMemberRemoveEvent) event).getGuild().getIdLong(),
+					((GuildMemberRemoveEvent) event).getUser().getIdLong());
+
+		final int command = event instanceof MessageReceivedEvent
+				? bot.getInternalCommandListener().findCommand((MessageReceivedEvent) event)
+				: -1;
+
+		final boolean handled = bot.getEventManager().hasHandlers(event.getClass());
+
+		if (command < 0 && !handled)
+			return;
+
+		bot.getEventDispatcher().dispatch(event, () -> {
+
+			if (command >= 0)
+				bot.getInternalCommandListener().dispatchCommand((MessageReceivedEvent) event, command);
 
-			if (event instanceof MessageReceivedEvent)
-				bot.getInternalCommandListener().dispatchCommand((MessageReceivedEvent) event);
+			if (!handled)
+				return;
+
+			CompletableFuture<Void> future = bot.getEventManager().dispatchEvent(event);
+
+			// Asynchronous handlers fail through the future rather than on this thread.
+			if (!future.isDone() || future.isCompletedExceptionally())
+				future.whenComplete((ignored, e) -> {
+
+					if (e != null)
+						LOGGER.error("An asynchronous event handler failed", e);
+
+				});
+
+		});
+
+	}
+
+	/**
+	 * Remove a member from the command manager's member cache, if it has one.
+	 * 
+	 * @param guildId The id of the member's guild.
+	 * @param userId  The id of the member's user.
+	 */
+	private void invalidateMember(long guildId, long userId) {
 
-			bot.getEventManager().dispatchEvent(event);
+		MemberCache memberCache = bot.getCommandManager().getMemberCache();
 
-		}).start();
+		if (memberCache != null)
+			memberCache.invalidate(guildId, userId);
 
 	}
 
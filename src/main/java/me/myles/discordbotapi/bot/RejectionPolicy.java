@@ -0,0 +1,54 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.bot;
+
+/**
+ * The policies an {@link me.myles.discordbotapi.bot.EventDispatcher
+ * EventDispatcher} can apply when its queue is full.
+ * 
+ * @author Myles Deslippe
+ */
+public enum RejectionPolicy {
+
+	/**
+	 * Block the submitting thread until there is space in the queue.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The submitting thread is usually the gateway thread,
+	 * so this will apply backpressure to the websocket connection.
+	 * </p>
+	 */
+	BLOCK,
+
+	/**
+	 * Run the event on the submitting thread.
+	 */
+	CALLER_RUNS,
+
+	/**
+	 * Discard the event that could not be queued.
+	 */
+	DISCARD,
+
+	/**
+	 * Discard the oldest queued event, and queue the new event in its place.
+	 */
+	DISCARD_OLDEST;
+
+}
@@ -0,0 +1,72 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.bot;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Access to virtual threads.
+ * 
+ * <p>
+ * Virtual threads are only available on Java 21 and newer, so this version of
+ * the class reports them as unsupported. The multi-release JAR replaces it
+ * with an implementation that creates virtual threads when running on Java 21
+ * or newer.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class VirtualThreads {
+
+	/**
+	 * This class should not be instantiated.
+	 */
+	private VirtualThreads() {
+
+	}
+
+	/**
+	 * Check if virtual threads are supported by the running JVM.
+	 * 
+	 * @return The truth value associated with virtual threads being supported.
+	 */
+	static boolean isSupported() {
+
+		return false;
+
+	}
+
+	/**
+	 * Create an executor that runs each task on a new virtual thread.
+	 * 
+	 * @param name The prefix of the virtual threads' names.
+	 * 
+	 * @return The executor.
+	 * 
+	 * @throws UnsupportedOperationException If virtual threads are not supported.
+	 */
+	static ExecutorService newExecutor(@Nonnull String name) {
+
+		throw new UnsupportedOperationException("Error: Virtual threads require Java 21 or newer!");
+
+	}
+
+}
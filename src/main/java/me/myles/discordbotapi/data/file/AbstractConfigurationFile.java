@@ -141,6 +141,22 @@ public abstract class AbstractConfigurationFile extends File {
 	 */
 	public abstract void save();
 
+	/**
+	 * Write any changes that have not been saved, blocking until they have been
+	 * written.
+	 * 
+	 * <p>
+	 * By default this calls {@link #save()}, override it if saving does not block.
+	 * </p>
+	 * 
+	 * @throws IOException If the file could not be written.
+	 */
+	public void flush() throws IOException {
+
+		this.save();
+
+	}
+
 	/**
 	 * Copy the default configuration.
 	 * 
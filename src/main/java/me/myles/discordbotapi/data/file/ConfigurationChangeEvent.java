@@ -0,0 +1,101 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.data.file;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import lombok.Getter;
+import net.dv8tion.jda.api.events.Event;
+
+/**
+ * Fired when a watched
+ * {@link me.myles.discordbotapi.data.file.ConfigurationFile ConfigurationFile}
+ * is changed on disk and reloaded.
+ * 
+ * <p>
+ * <strong>Note:</strong> The event does not come from Discord, so
+ * {@link #getJDA()} will return null and the response number is -1.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class ConfigurationChangeEvent extends Event {
+
+	/**
+	 * The key the file is registered with in the
+	 * {@link me.myles.discordbotapi.data.file.FileManager FileManager}.
+	 */
+	@Getter
+	private final String key;
+
+	/**
+	 * The file that was reloaded.
+	 */
+	@Getter
+	private final ConfigurationFile file;
+
+	/**
+	 * The paths of the values that were added, changed or removed.
+	 */
+	@Getter
+	private final Set<String> changedPaths;
+
+	/**
+	 * Create a new ConfigurationChangeEvent.
+	 * 
+	 * @param key          The key the file is registered with.
+	 * @param file         The file that was reloaded.
+	 * @param changedPaths The paths of the values that were added, changed or
+	 *                     removed.
+	 */
+	public ConfigurationChangeEvent(@Nonnull String key, @Nonnull ConfigurationFile file,
+			@Nonnull Set<String> changedPaths) {
+
+		super(null, -1);
+		this.key = key;
+		this.file = file;
+		this.changedPaths = changedPaths;
+
+	}
+
+	/**
+	 * Check if a value, or a value below it, was changed.
+	 * 
+	 * @param path The path of the value.
+	 * 
+	 * @return The truth value associated with the value being changed.
+	 */
+	public boolean isChanged(@Nonnull String path) {
+
+		if (this.changedPaths.contains(path))
+			return true;
+
+		String prefix = path + ".";
+
+		for (String changed : this.changedPaths)
+			if (changed.startsWith(prefix))
+				return true;
+
+		return false;
+
+	}
+
+}
@@ -20,16 +20,56 @@ package me.myles.discordbotapi.data.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.annotation.Nonnull;
+
+import org.simpleyaml.configuration.ConfigurationSection;
 import org.simpleyaml.configuration.file.YamlFile;
 import org.simpleyaml.exceptions.InvalidConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * A YAML configuration file utility.
  * 
+ * <p>
+ * Saving is write-behind. {@link #save()} marks the file as dirty and returns
+ * immediately, and a background flusher writes the file once the save delay
+ * has passed, so a burst of changes is written once. The file is written to a
+ * temporary file and then moved over the original, so a crash never leaves a
+ * partially written file behind.
+ * </p>
+ * 
+ * <p>
+ * Parsing can be skipped by setting a snapshot directory. The parsed
+ * configuration is then stored in a binary snapshot, which is loaded instead of
+ * the YAML until the file changes.
+ * </p>
+ * 
  * @author Myles Deslippe
  */
 public class ConfigurationFile extends AbstractConfigurationFile {
@@ -39,12 +79,92 @@ public class ConfigurationFile extends AbstractConfigurationFile {
 	 */
 	private static final long serialVersionUID = 7950438595670529199L;
 
+	/**
+	 * The default number of milliseconds between a change and the write.
+	 */
+	public static final long DEFAULT_SAVE_DELAY = 1000;
+
+	/**
+	 * The maximum number of milliseconds between retries of a failed background
+	 * write.
+	 */
+	private static final long MAX_RETRY_DELAY = 60000;
+
+	/**
+	 * The configuration file logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationFile.class);
+
+	/**
+	 * The flusher that writes dirty files in the background.
+	 */
+	private static volatile ScheduledExecutorService flusher;
+
 	/**
 	 * The YAML configuration.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Changes made directly to the configuration must be
+	 * followed by {@link #save()}, and should be made while holding the file's
+	 * lock.
+	 * </p>
 	 */
 	@Getter
 	private YamlFile configuration;
 
+	/**
+	 * The number of milliseconds between a change and the write.
+	 */
+	@Getter
+	@Setter
+	private volatile long saveDelay;
+
+	/**
+	 * The directory the configuration's snapshot is kept in, or null if snapshots
+	 * are disabled.
+	 */
+	@Getter
+	@Setter
+	private volatile transient Path snapshotDirectory;
+
+	/**
+	 * The truth value associated with the configuration having changes that have
+	 * not been written.
+	 */
+	private final AtomicBoolean dirty;
+
+	/**
+	 * The truth value associated with a write being scheduled.
+	 */
+	private final AtomicBoolean scheduled;
+
+	/**
+	 * The lock that orders writes to the disk.
+	 * 
+	 * <p>
+	 * It is only held for the disk I/O, and never while taking the file's lock,
+	 * so the file's lock can be held while flushing.
+	 * </p>
+	 */
+	private final transient Object writeLock;
+
+	/**
+	 * The version of the last serialized configuration, guarded by the file's
+	 * lock.
+	 */
+	private transient long serialized;
+
+	/**
+	 * The version of the last written configuration, guarded by the write lock.
+	 */
+	private transient long written;
+
+	/**
+	 * The modification time of the file after it was last written, used to ignore
+	 * the file's own writes when reloading.
+	 */
+	private volatile transient FileTime lastWritten;
+
 	/**
 	 * Create a new ConfigurationFile.
 	 * 
@@ -55,6 +175,10 @@ public class ConfigurationFile extends AbstractConfigurationFile {
 
 		super(file);
 		this.configuration = new YamlFile(this);
+		this.saveDelay = DEFAULT_SAVE_DELAY;
+		this.dirty = new AtomicBoolean();
+		this.scheduled = new AtomicBoolean();
+		this.writeLock = new Object();
 
 	}
 
@@ -68,6 +192,10 @@ public class ConfigurationFile extends AbstractConfigurationFile {
 
 		super(path);
 		this.configuration = new YamlFile(this);
+		this.saveDelay = DEFAULT_SAVE_DELAY;
+		this.dirty = new AtomicBoolean();
+		this.scheduled = new AtomicBoolean();
+		this.writeLock = new Object();
 
 	}
 
@@ -81,15 +209,36 @@ public class ConfigurationFile extends AbstractConfigurationFile {
 
 		super(path);
 		this.configuration = new YamlFile(this);
+		this.saveDelay = DEFAULT_SAVE_DELAY;
+		this.dirty = new AtomicBoolean();
+		this.scheduled = new AtomicBoolean();
+		this.writeLock = new Object();
 
 	}
 
 	@Override
 	public synchronized void load() throws IOException {
 
+		Path directory = this.snapshotDirectory;
+		ConfigurationSnapshot snapshot = null;
+
+		if (directory != null && this.exists()) {
+
+			snapshot = new ConfigurationSnapshot(directory, this.toPath());
+
+			if (snapshot.restore(this.configuration)) {
+
+				this.dirty.set(false);
+				return;
+
+			}
+
+		}
+
 		try {
 
 			this.configuration.load();
+			this.dirty.set(false);
 
 		} catch (InvalidConfigurationException e) {
 
@@ -97,13 +246,397 @@ public class ConfigurationFile extends AbstractConfigurationFile {
 
 		}
 
+		if (snapshot == null)
+			return;
+
+		try {
+
+			snapshot.store(this.configuration);
+
+		} catch (IOException e) {
+
+			LOGGER.warn("Could not write the snapshot of the configuration file {}", this, e);
+
+		}
+
 	}
 
-	@Override
-	public synchronized void save() {
+	/**
+	 * Reload the file, and find the values that changed.
+	 * 
+	 * <p>
+	 * The file is not reloaded if it is dirty, because its unsaved changes would
+	 * be lost, or if it has not been modified since it was last written.
+	 * </p>
+	 * 
+	 * @return The paths of the values that were added, changed or removed.
+	 * 
+	 * @throws IOException If the file could not be loaded.
+	 */
+	public Set<String> reload() throws IOException {
+
+		Map<String, Object> before;
+		Map<String, Object> after;
+
+		synchronized (this) {
+
+			if (this.isDirty() || !this.exists())
+				return Collections.emptySet();
+
+			FileTime lastWritten = this.lastWritten;
+
+			if (lastWritten != null && lastWritten.equals(Files.getLastModifiedTime(this.toPath())))
+				return Collections.emptySet();
+
+			before = this.snapshot();
+
+			// Loading merges into the current values, so clear them for removed values
+			// to be seen.
+			for (String key : this.configuration.getKeys(false))
+				this.configuration.set(key, null);
+
+			try {
+
+				this.load();
+
+			} catch (IOException e) {
+
+				for (Map.Entry<String, Object> entry : before.entrySet())
+					this.configuration.set(entry.getKey(), entry.getValue());
+
+				throw e;
+
+			}
+
+			after = this.snapshot();
+
+		}
+
+		Set<String> changed = new HashSet<String>();
+
+		for (Map.Entry<String, Object> entry : after.entrySet())
+			if (!Objects.equals(entry.getValue(), before.get(entry.getKey())))
+				changed.add(entry.getKey());
+
+		for (String path : before.keySet())
+			if (!after.containsKey(path))
+				changed.add(path);
+
+		return Collections.unmodifiableSet(changed);
+
+	}
+
+	/**
+	 * Copy the leaf values of the configuration.
+	 * 
+	 * @return The leaf values, keyed by their paths.
+	 */
+	private Map<String, Object> snapshot() {
+
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+		for (Map.Entry<String, Object> entry : this.configuration.getValues(true).entrySet())
+			if (!(entry.getValue() instanceof ConfigurationSection))
+				values.put(entry.getKey(), entry.getValue());
+
+		return values;
 
+	}
+
+	/**
+	 * Set a value, and schedule the file to be saved.
+	 * 
+	 * @param path  The path of the value.
+	 * @param value The value, or null to remove it.
+	 */
+	public synchronized void set(String path, Object value) {
+
+		this.configuration.set(path, value);
 		this.save();
 
 	}
 
+	/**
+	 * Schedule the file to be saved.
+	 * 
+	 * <p>
+	 * This does not block, the file is written by the background flusher once the
+	 * save delay has passed. Use {@link #flush()} to write it immediately.
+	 * </p>
+	 */
+	@Override
+	public void save() {
+
+		this.dirty.set(true);
+
+		if (this.scheduled.compareAndSet(false, true)) {
+
+			long delay = this.saveDelay;
+			getFlusher().schedule(() -> this.flushScheduled(delay), delay, TimeUnit.MILLISECONDS);
+
+		}
+
+	}
+
+	/**
+	 * Write the file if it has changes that have not been written, blocking until
+	 * it has been written.
+	 * 
+	 * <p>
+	 * The configuration is serialized while holding the file's lock, and written
+	 * while holding only the write lock, so this may be called while holding the
+	 * file's lock. If another thread is already writing the file, this waits for
+	 * that write to finish.
+	 * </p>
+	 * 
+	 * @throws IOException If the file could not be written, it will remain dirty.
+	 */
+	@Override
+	public void flush() throws IOException {
+
+		while (true) {
+
+			String content = null;
+			long version;
+
+			synchronized (this) {
+
+				if (this.dirty.getAndSet(false)) {
+
+					try {
+
+						content = this.configuration.saveToString();
+
+					} catch (IOException | RuntimeException e) {
+
+						this.dirty.set(true);
+						throw e;
+
+					}
+
+					version = ++this.serialized;
+
+				} else {
+
+					version = this.serialized;
+
+				}
+
+			}
+
+			synchronized (this.writeLock) {
+
+				if (content == null) {
+
+					// Another thread serialized the changes, wait for it to write them. If its
+					// write fails the file is dirty again, and it is written by this thread.
+					while (this.written < version && !this.dirty.get()) {
+
+						try {
+
+							this.writeLock.wait();
+
+						} catch (InterruptedException e) {
+
+							Thread.currentThread().interrupt();
+							throw new InterruptedIOException(
+									"Error: Interrupted while waiting for the file to be written!");
+
+						}
+
+					}
+
+					if (this.written >= version)
+						return;
+
+					continue;
+
+				}
+
+				// A newer version has already been written.
+				if (this.written >= version)
+					return;
+
+				try {
+
+					this.write(content);
+					this.written = version;
+
+				} catch (IOException | RuntimeException e) {
+
+					this.dirty.set(true);
+					throw e;
+
+				} finally {
+
+					this.writeLock.notifyAll();
+
+				}
+
+				return;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Check if the configuration has changes that have not been written.
+	 * 
+	 * @return The truth value associated with the configuration being dirty.
+	 */
+	public boolean isDirty() {
+
+		return this.dirty.get();
+
+	}
+
+	/**
+	 * Write the serialized configuration to a temporary file, and move it over the
+	 * file.
+	 * 
+	 * <p>
+	 * This must be called while holding the write lock.
+	 * </p>
+	 * 
+	 * @param content The serialized configuration.
+	 * 
+	 * @throws IOException If the file could not be written.
+	 */
+	private void write(@Nonnull String content) throws IOException {
+
+		Path target = this.getAbsoluteFile().toPath();
+		Path directory = target.getParent();
+
+		if (directory != null)
+			Files.createDirectories(directory);
+
+		Path temporary = target.resolveSibling(
+				this.getName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+
+		// The temporary file replaces the file, so it is created with the default
+		// permissions and then given the file's permissions.
+		Files.createFile(temporary);
+
+		try {
+
+			copyPermissions(target, temporary);
+			Files.write(temporary, content.getBytes(StandardCharsets.UTF_8));
+
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+
+				channel.force(true);
+
+			}
+
+			try {
+
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+
+			} catch (AtomicMoveNotSupportedException e) {
+
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+
+			}
+
+			this.lastWritten = Files.getLastModifiedTime(target);
+
+		} finally {
+
+			Files.deleteIfExists(temporary);
+
+		}
+
+
+	}
+
+	/**
+	 * Copy the POSIX permissions of a file onto another file.
+	 * 
+	 * @param source The file to copy the permissions from, nothing is copied if it
+	 *               does not exist.
+	 * @param target The file to copy the permissions onto.
+	 * 
+	 * @throws IOException If the permissions could not be copied.
+	 */
+	private static void copyPermissions(Path source, Path target) throws IOException {
+
+		if (!Files.exists(source))
+			return;
+
+		PosixFileAttributeView view = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+
+		if (view != null)
+			Files.setPosixFilePermissions(target, view.readAttributes().permissions());
+
+	}
+
+	/**
+	 * Write the file from the background flusher.
+	 * 
+	 * <p>
+	 * A failed write is retried, doubling the delay each time up to a minute, so
+	 * the changes are not left unwritten until the next save.
+	 * </p>
+	 * 
+	 * @param delay The number of milliseconds this write was delayed by.
+	 */
+	private void flushScheduled(long delay) {
+
+		// Changes made from here on schedule another write.
+		this.scheduled.set(false);
+
+		try {
+
+			this.flush();
+
+		} catch (IOException | RuntimeException e) {
+
+			long retry = Math.min(Math.max(delay * 2, 1), MAX_RETRY_DELAY);
+
+			LOGGER.error("Could not save the configuration file {}, retrying in {} ms", this, retry, e);
+
+			if (this.scheduled.compareAndSet(false, true))
+				getFlusher().schedule(() -> this.flushScheduled(retry), retry, TimeUnit.MILLISECONDS);
+
+		}
+
+	}
+
+	/**
+	 * Get the background flusher, creating it if necessary.
+	 * 
+	 * @return The flusher.
+	 */
+	private static ScheduledExecutorService getFlusher() {
+
+		ScheduledExecutorService current = flusher;
+
+		if (current != null)
+			return current;
+
+		synchronized (ConfigurationFile.class) {
+
+			if (flusher == null) {
+
+				ScheduledThreadPoolExecutor created = new ScheduledThreadPoolExecutor(1, runnable -> {
+
+					Thread thread = new Thread(runnable, "ConfigurationFile-Flusher");
+					thread.setDaemon(true);
+					return thread;
+
+				});
+
+				flusher = created;
+
+			}
+
+			return flusher;
+
+		}
+
+	}
+
 }
@@ -0,0 +1,558 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.data.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.simpleyaml.configuration.ConfigurationSection;
+
+/**
+ * A binary snapshot of a parsed configuration, used to skip parsing the YAML
+ * when the file has not changed.
+ * 
+ * <p>
+ * The snapshot is keyed by the size, modification time and checksum of the
+ * YAML file, and is only used while all three match. It holds the sections and
+ * values of the configuration.
+ * </p>
+ * 
+ * <p>
+ * Snapshots are small, so they are read into memory in one read rather than
+ * mapped. A mapped file can not be replaced on some platforms until the mapping
+ * is collected, and a stale snapshot is replaced as soon as it is found.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class ConfigurationSnapshot {
+
+	/**
+	 * The magic number at the start of every snapshot.
+	 */
+	private static final int MAGIC = 0x44424353;
+
+	/**
+	 * The version of the snapshot format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The size of the buffer the YAML file is checksummed through.
+	 */
+	private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The type tags of the encoded values.
+	 */
+	private static final byte SECTION = 0, NULL = 1, STRING = 2, INTEGER = 3, LONG = 4, DOUBLE = 5, FLOAT = 6,
+			BOOLEAN = 7, LIST = 8, MAP = 9;
+
+	/**
+	 * The placeholder for sections in the decoded values.
+	 */
+	private static final Object SECTION_PLACEHOLDER = new Object();
+
+	/**
+	 * The YAML file.
+	 */
+	private final Path source;
+
+	/**
+	 * The snapshot file.
+	 */
+	private final Path snapshot;
+
+	/**
+	 * The size of the YAML file when it was checked.
+	 */
+	private long size;
+
+	/**
+	 * The modification time of the YAML file when it was checked.
+	 */
+	private long modified;
+
+	/**
+	 * The checksum of the YAML file when it was checked, this will be -1 if the
+	 * file has not been checked.
+	 */
+	private long checksum;
+
+	/**
+	 * Create a snapshot of a YAML file.
+	 * 
+	 * @param directory The directory the snapshot is kept in.
+	 * @param source    The YAML file.
+	 */
+	ConfigurationSnapshot(Path directory, Path source) {
+
+		this.source = source.toAbsolutePath();
+		this.snapshot = directory.resolve(this.source.getFileName() + "-"
+				+ Integer.toHexString(this.source.toString().hashCode()) + ".snapshot");
+		this.checksum = -1;
+
+	}
+
+	/**
+	 * Restore the configuration from the snapshot, if the snapshot matches the
+	 * YAML file.
+	 * 
+	 * <p>
+	 * The YAML file is checked even if there is no snapshot, so that the key
+	 * {@link #store(ConfigurationSection)} uses describes the file from before it
+	 * was parsed.
+	 * </p>
+	 * 
+	 * @param configuration The configuration to restore the values into.
+	 * 
+	 * @return The truth value associated with the configuration being restored.
+	 * 
+	 * @throws IOException If the YAML file could not be checked.
+	 */
+	boolean restore(ConfigurationSection configuration) throws IOException {
+
+		BasicFileAttributes attributes = Files.readAttributes(this.source, BasicFileAttributes.class);
+
+		this.size = attributes.size();
+		this.modified = attributes.lastModifiedTime().toMillis();
+		this.checksum = checksum(this.source);
+
+		Map<String, Object> values;
+
+		try (FileChannel channel = FileChannel.open(this.snapshot, StandardOpenOption.READ)) {
+
+			long size = channel.size();
+
+			if (size > Integer.MAX_VALUE)
+				return false;
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+			// The snapshot shrank while it was being read, so it is being replaced.
+			while (buffer.hasRemaining())
+				if (channel.read(buffer) < 0)
+					return false;
+
+			buffer.flip();
+			values = this.decode(buffer);
+
+		} catch (NoSuchFileException e) {
+
+			return false;
+
+		}
+
+		if (values == null)
+			return false;
+
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+
+			if (entry.getValue() == SECTION_PLACEHOLDER)
+				configuration.createSection(entry.getKey());
+			else
+				configuration.set(entry.getKey(), entry.getValue());
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Store the configuration in the snapshot.
+	 * 
+	 * <p>
+	 * Configurations holding values that can not be encoded, such as dates, are
+	 * not stored, and any existing snapshot is deleted.
+	 * </p>
+	 * 
+	 * @param configuration The configuration that was parsed from the YAML file.
+	 * 
+	 * @throws IOException If the snapshot could not be written.
+	 */
+	void store(ConfigurationSection configuration) throws IOException {
+
+		if (this.checksum < 0)
+			throw new IllegalStateException("Error: The YAML file has not been checked!");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeLong(this.size);
+		output.writeLong(this.modified);
+		output.writeInt((int) this.checksum);
+		writeString(output, this.source.toString());
+
+		Map<String, Object> values = configuration.getValues(true);
+
+		output.writeInt(values.size());
+
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+
+			writeString(output, entry.getKey());
+
+			if (!encode(output, entry.getValue())) {
+
+				Files.deleteIfExists(this.snapshot);
+				return;
+
+			}
+
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray(), 0, bytes.size());
+		output.writeInt((int) crc.getValue());
+
+		Files.createDirectories(this.snapshot.getParent());
+
+		Path temporary = Files.createTempFile(this.snapshot.getParent(), this.snapshot.getFileName().toString(),
+				".tmp");
+
+		try {
+
+			Files.write(temporary, bytes.toByteArray());
+
+			try {
+
+				Files.move(temporary, this.snapshot, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+
+			} catch (AtomicMoveNotSupportedException e) {
+
+				Files.move(temporary, this.snapshot, StandardCopyOption.REPLACE_EXISTING);
+
+			}
+
+		} finally {
+
+			Files.deleteIfExists(temporary);
+
+		}
+
+	}
+
+	/**
+	 * Decode the snapshot, checking it against the YAML file.
+	 * 
+	 * @param buffer The snapshot.
+	 * 
+	 * @return The sections and values keyed by their paths, with sections mapped
+	 *         to a placeholder, or null if the snapshot is stale or corrupt.
+	 */
+	private Map<String, Object> decode(ByteBuffer buffer) {
+
+		try {
+
+			if (buffer.remaining() < Integer.BYTES * 2 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return null;
+
+			if (buffer.getLong() != this.size || buffer.getLong() != this.modified
+					|| buffer.getInt() != (int) this.checksum || !this.source.toString().equals(readString(buffer)))
+				return null;
+
+			// Only the values are left to read, so check that they are intact first.
+			CRC32 crc = new CRC32();
+			ByteBuffer content = buffer.duplicate();
+
+			content.position(0);
+			content.limit(buffer.limit() - Integer.BYTES);
+			crc.update(content);
+
+			if (buffer.getInt(buffer.limit() - Integer.BYTES) != (int) crc.getValue())
+				return null;
+
+			int count = buffer.getInt();
+			Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+			for (int i = 0; i < count; i++) {
+
+				String path = readString(buffer);
+				byte type = buffer.get();
+
+				values.put(path, type == SECTION ? SECTION_PLACEHOLDER : decode(buffer, type));
+
+			}
+
+			return values;
+
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * Encode a value.
+	 * 
+	 * @param output The output to encode the value to.
+	 * @param value  The value.
+	 * 
+	 * @return The truth value associated with the value being encoded, false if
+	 *         its type is not supported.
+	 * 
+	 * @throws IOException If the value could not be written.
+	 */
+	private static boolean encode(DataOutputStream output, Object value) throws IOException {
+
+		if (value instanceof ConfigurationSection) {
+
+			output.writeByte(SECTION);
+
+		} else if (value == null) {
+
+			output.writeByte(NULL);
+
+		} else if (value instanceof String) {
+
+			output.writeByte(STRING);
+			writeString(output, (String) value);
+
+		} else if (value instanceof Integer) {
+
+			output.writeByte(INTEGER);
+			output.writeInt((Integer) value);
+
+		} else if (value instanceof Long) {
+
+			output.writeByte(LONG);
+			output.writeLong((Long) value);
+
+		} else if (value instanceof Double) {
+
+			output.writeByte(DOUBLE);
+			output.writeDouble((Double) value);
+
+		} else if (value instanceof Float) {
+
+			output.writeByte(FLOAT);
+			output.writeFloat((Float) value);
+
+		} else if (value instanceof Boolean) {
+
+			output.writeByte(BOOLEAN);
+			output.writeBoolean((Boolean) value);
+
+		} else if (value instanceof List) {
+
+			List<?> list = (List<?>) value;
+
+			output.writeByte(LIST);
+			output.writeInt(list.size());
+
+			for (Object element : list)
+				if (element instanceof ConfigurationSection || !encode(output, element))
+					return false;
+
+		} else if (value instanceof Map) {
+
+			Map<?, ?> map = (Map<?, ?>) value;
+
+			output.writeByte(MAP);
+			output.writeInt(map.size());
+
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+
+				if (!(entry.getKey() instanceof String) || entry.getValue() instanceof ConfigurationSection)
+					return false;
+
+				writeString(output, (String) entry.getKey());
+
+				if (!encode(output, entry.getValue()))
+					return false;
+
+			}
+
+		} else {
+
+			return false;
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Decode a value.
+	 * 
+	 * @param buffer The buffer to decode the value from.
+	 * @param type   The type tag of the value.
+	 * 
+	 * @return The value.
+	 */
+	private static Object decode(ByteBuffer buffer, byte type) {
+
+		switch (type) {
+
+		case NULL:
+			return null;
+
+		case STRING:
+			return readString(buffer);
+
+		case INTEGER:
+			return buffer.getInt();
+
+		case LONG:
+			return buffer.getLong();
+
+		case DOUBLE:
+			return buffer.getDouble();
+
+		case FLOAT:
+			return buffer.getFloat();
+
+		case BOOLEAN:
+			return buffer.get() != 0;
+
+		case LIST:
+
+			int size = readLength(buffer);
+			List<Object> list = new ArrayList<Object>(size);
+
+			for (int i = 0; i < size; i++)
+				list.add(decode(buffer, buffer.get()));
+
+			return list;
+
+		case MAP:
+
+			int entries = readLength(buffer);
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+
+			for (int i = 0; i < entries; i++)
+				map.put(readString(buffer), decode(buffer, buffer.get()));
+
+			return map;
+
+		default:
+			throw new IllegalArgumentException("Error: Unknown value type " + type + "!");
+
+		}
+
+	}
+
+	/**
+	 * Write a string.
+	 * 
+	 * @param output The output to write the string to.
+	 * @param value  The string.
+	 * 
+	 * @throws IOException If the string could not be written.
+	 */
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		output.writeInt(bytes.length);
+		output.write(bytes);
+
+	}
+
+	/**
+	 * Read a string.
+	 * 
+	 * @param buffer The buffer to read the string from.
+	 * 
+	 * @return The string.
+	 */
+	private static String readString(ByteBuffer buffer) {
+
+		byte[] bytes = new byte[readLength(buffer)];
+
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+
+	}
+
+	/**
+	 * Read a length, checking it against the remaining bytes.
+	 * 
+	 * @param buffer The buffer to read the length from.
+	 * 
+	 * @return The length.
+	 */
+	private static int readLength(ByteBuffer buffer) {
+
+		int length = buffer.getInt();
+
+		if (length < 0 || length > buffer.remaining())
+			throw new IllegalArgumentException("Error: Invalid length " + length + "!");
+
+		return length;
+
+	}
+
+	/**
+	 * Compute the checksum of a file.
+	 * 
+	 * @param path The file.
+	 * 
+	 * @return The checksum.
+	 * 
+	 * @throws IOException If the file could not be read.
+	 */
+	private static long checksum(Path path) throws IOException {
+
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(CHECKSUM_BUFFER_SIZE);
+
+		// The YAML file is read rather than mapped, since a mapped file can not be
+		// replaced on some platforms until the mapping is collected.
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+			while (channel.read(buffer) >= 0) {
+
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+
+			}
+
+		}
+
+		return crc.getValue();
+
+	}
+
+}
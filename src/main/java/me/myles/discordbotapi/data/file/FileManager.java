@@ -19,29 +19,95 @@
 package me.myles.discordbotapi.data.file;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import lombok.Getter;
+import me.myles.discordbotapi.bot.EventDispatcher;
+import me.myles.discordbotapi.event.EventManager;
 
 /**
  * A {@link java.io.File File} management utility.
  * 
+ * <p>
+ * The registered {@link me.myles.discordbotapi.data.file.ConfigurationFile
+ * ConfigurationFile}s can be watched for changes. Changed files are reloaded
+ * on a background thread, and a
+ * {@link me.myles.discordbotapi.data.file.ConfigurationChangeEvent
+ * ConfigurationChangeEvent} listing the changed values is dispatched for each
+ * of them through the bot's event dispatcher.
+ * </p>
+ * 
  * @author Myles Deslippe
  */
 public class FileManager {
 
+	/**
+	 * The file manager's logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileManager.class);
+
+	/**
+	 * The number of milliseconds to wait for more changes before reloading, since
+	 * editors and atomic moves produce several events for one change.
+	 */
+	private static final long WATCH_SETTLE_DELAY = 100;
+
 	/**
 	 * The registered files.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The files are held in a concurrent map, so neither
+	 * keys nor files can be null.
+	 * </p>
 	 */
 	@Getter
-	private HashMap<String, File> files;
+	private Map<String, File> files;
+
+	/**
+	 * The directories that are being watched.
+	 */
+	private final ConcurrentHashMap<Path, WatchKey> watchedDirectories;
+
+	/**
+	 * The watch service, this will be null while the files are not being watched.
+	 */
+	private volatile WatchService watchService;
+
+	/**
+	 * The event manager the change events are dispatched through.
+	 */
+	private volatile EventManager eventManager;
+
+	/**
+	 * The dispatcher the change events are executed on.
+	 */
+	private volatile EventDispatcher eventDispatcher;
 
 	/**
 	 * Create a new FileManager.
 	 */
 	public FileManager() {
 
-		this.files = new HashMap<String, File>();
+		this.files = new ConcurrentHashMap<String, File>();
+		this.watchedDirectories = new ConcurrentHashMap<Path, WatchKey>();
 
 	}
 
@@ -51,9 +117,13 @@ public class FileManager {
 	 * @param key The file's key.
 	 * 
 	 * @return The file.
+	 * 
+	 * @throws IllegalArgumentException If the key is null.
 	 */
 	public File getFile(String key) {
 
+		requireKey(key);
+
 		return this.files.get(key);
 
 	}
@@ -63,22 +133,48 @@ public class FileManager {
 	 * 
 	 * @param key  The key to bind to the file.
 	 * @param file The file.
+	 * 
+	 * @throws IllegalArgumentException If the key or the file is null.
 	 */
 	public void addFile(String key, File file) {
 
+		requireKey(key);
+
+		if (file == null)
+			throw new IllegalArgumentException("Error: The file can not be null!");
+
 		this.files.put(key, file);
 
+		WatchService watchService = this.watchService;
+
+		if (watchService != null && file instanceof ConfigurationFile) {
+
+			try {
+
+				this.watchDirectory(watchService, file);
+
+			} catch (IOException e) {
+
+				LOGGER.error("Could not watch the configuration file {}", file, e);
+
+			}
+
+		}
+
 	}
 
 	/**
 	 * Remove a file.
 	 * 
 	 * @param key The key that is bound to the file.
+	 * 
+	 * @throws IllegalArgumentException If the key is null.
 	 */
 	public void removeFile(String key) {
 
-		if (this.contains(key))
-			this.files.remove(key);
+		requireKey(key);
+
+		this.files.remove(key);
 
 	}
 
@@ -92,7 +188,7 @@ public class FileManager {
 	 */
 	public boolean contains(String key) {
 
-		return this.files.containsKey(key);
+		return key != null && this.files.containsKey(key);
 
 	}
 
@@ -106,8 +202,280 @@ public class FileManager {
 	 */
 	public boolean contains(File file) {
 
-		return this.files.containsValue(file);
+		return file != null && this.files.containsValue(file);
+
+	}
+
+	/**
+	 * Start watching the registered configuration files for changes.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Files with unsaved changes are not reloaded.
+	 * </p>
+	 * 
+	 * <p>
+	 * Files are reloaded on the watcher thread, but the change events are handed
+	 * to the dispatcher so that slow handlers do not hold up later reloads.
+	 * </p>
+	 * 
+	 * @param eventManager    The event manager to dispatch the change events
+	 *                        through.
+	 * @param eventDispatcher The dispatcher to execute the change events on.
+	 * 
+	 * @throws IOException If the watch service could not be created.
+	 */
+	public synchronized void startWatching(@Nonnull EventManager eventManager,
+			@Nonnull EventDispatcher eventDispatcher) throws IOException {
+
+		if (this.watchService != null)
+			return;
+
+		WatchService watchService = FileSystems.getDefault().newWatchService();
+
+		try {
+
+			for (File file : this.files.values())
+				if (file instanceof ConfigurationFile)
+					this.watchDirectory(watchService, file);
+
+		} catch (IOException e) {
+
+			watchService.close();
+			this.watchedDirectories.clear();
+			throw e;
+
+		}
+
+		this.eventManager = eventManager;
+		this.eventDispatcher = eventDispatcher;
+		this.watchService = watchService;
+
+		Thread watcher = new Thread(() -> this.watch(watchService), "FileManager-Watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+
+	}
+
+	/**
+	 * Stop watching the registered configuration files.
+	 */
+	public synchronized void stopWatching() {
+
+		WatchService watchService = this.watchService;
+
+		if (watchService == null)
+			return;
+
+		this.watchService = null;
+		this.watchedDirectories.clear();
+
+		try {
+
+			watchService.close();
+
+		} catch (IOException e) {
+
+			LOGGER.warn("Could not close the watch service", e);
+
+		}
+
+	}
+
+	/**
+	 * Check if the registered configuration files are being watched.
+	 * 
+	 * @return The truth value associated with the files being watched.
+	 */
+	public boolean isWatching() {
+
+		return this.watchService != null;
+
+	}
+
+	/**
+	 * Write the pending changes of every registered configuration file.
+	 * 
+	 * <p>
+	 * Files that can not be written are logged, and the remaining files are still
+	 * written.
+	 * </p>
+	 */
+	public void flushAll() {
+
+		for (File file : this.files.values()) {
+
+			if (!(file instanceof AbstractConfigurationFile))
+				continue;
+
+			try {
+
+				((AbstractConfigurationFile) file).flush();
+
+			} catch (IOException e) {
+
+				LOGGER.error("Could not save the configuration file {}", file, e);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Watch the directory of a file.
+	 * 
+	 * @param watchService The watch service.
+	 * @param file         The file.
+	 * 
+	 * @throws IOException If the directory could not be watched.
+	 */
+	private void watchDirectory(WatchService watchService, File file) throws IOException {
+
+		Path directory = path(file).getParent();
+
+		if (directory == null || this.watchedDirectories.containsKey(directory))
+			return;
+
+		this.watchedDirectories.put(directory, directory.register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
 
 	}
-	
+
+	/**
+	 * Reload changed files until the watch service is closed.
+	 * 
+	 * @param watchService The watch service.
+	 */
+	private void watch(WatchService watchService) {
+
+		while (true) {
+
+			Set<Path> changed = new HashSet<Path>();
+
+			try {
+
+				WatchKey key = watchService.take();
+
+				do {
+
+					collect(key, changed);
+					key = watchService.poll(WATCH_SETTLE_DELAY, TimeUnit.MILLISECONDS);
+
+				} while (key != null);
+
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+
+				return;
+
+			}
+
+			for (Map.Entry<String, File> entry : this.files.entrySet()) {
+
+				if (!(entry.getValue() instanceof ConfigurationFile))
+					continue;
+
+				Path path = path(entry.getValue());
+
+				if (changed.contains(path) || changed.contains(path.getParent()))
+					this.reload(entry.getKey(), (ConfigurationFile) entry.getValue());
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Reload a file, and dispatch an event if any of its values changed.
+	 * 
+	 * @param key  The key bound to the file.
+	 * @param file The file.
+	 */
+	private void reload(String key, ConfigurationFile file) {
+
+		Set<String> changed;
+
+		try {
+
+			changed = file.reload();
+
+		} catch (IOException e) {
+
+			LOGGER.error("Could not reload the configuration file {}", file, e);
+			return;
+
+		}
+
+		EventManager eventManager = this.eventManager;
+		EventDispatcher eventDispatcher = this.eventDispatcher;
+
+		if (changed.isEmpty() || eventManager == null || eventDispatcher == null)
+			return;
+
+		ConfigurationChangeEvent event = new ConfigurationChangeEvent(key, file, changed);
+
+		eventDispatcher.dispatch(event, () -> {
+
+			CompletableFuture<Void> future = eventManager.dispatchEvent(event);
+
+			future.whenComplete((ignored, e) -> {
+
+				if (e != null)
+					LOGGER.error("An asynchronous event handler failed", e);
+
+			});
+
+		});
+
+	}
+
+	/**
+	 * Collect the paths that changed from a watch key, and reset it.
+	 * 
+	 * @param key     The watch key.
+	 * @param changed The set to add the changed paths to.
+	 */
+	private static void collect(WatchKey key, Set<Path> changed) {
+
+		Path directory = (Path) key.watchable();
+
+		// If events were lost, the directory is marked so that all of its files are
+		// reloaded.
+		for (WatchEvent<?> event : key.pollEvents())
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+				changed.add(directory);
+			else
+				changed.add(directory.resolve((Path) event.context()));
+
+		key.reset();
+
+	}
+
+	/**
+	 * Get the normalized absolute path of a file.
+	 * 
+	 * @param file The file.
+	 * 
+	 * @return The path.
+	 */
+	private static Path path(File file) {
+
+		return file.getAbsoluteFile().toPath().normalize();
+
+	}
+
+	/**
+	 * Check that a file's key is not null.
+	 * 
+	 * @param key The key.
+	 * 
+	 * @throws IllegalArgumentException If the key is null.
+	 */
+	private static void requireKey(String key) {
+
+		if (key == null)
+			throw new IllegalArgumentException("Error: The key can not be null!");
+
+	}
+
 }
@@ -0,0 +1,540 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.data.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A store of per-guild {@link me.myles.discordbotapi.data.file.ConfigurationFile
+ * ConfigurationFile}s.
+ * 
+ * <p>
+ * A guild's file is loaded the first time it is accessed, and registered with
+ * the {@link me.myles.discordbotapi.data.file.FileManager FileManager} while it
+ * is loaded. At most {@link #getCapacity()} files are kept loaded, once there
+ * are more, the least recently used file is flushed and unloaded in the
+ * background, so a guild's access never waits for another guild's file to be
+ * written.
+ * </p>
+ * 
+ * <p>
+ * There is never more than one instance of a guild's file. An unloaded file
+ * that is still referenced, for example by a caller that got it before it was
+ * unloaded, is handed out again instead of being read from the disk, so changes
+ * made through either reference are never lost. If such a file is saved, it is
+ * registered with the file manager again until it has been written.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class GuildConfigurationStore {
+
+	/**
+	 * The store's logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(GuildConfigurationStore.class);
+
+	/**
+	 * The executor that flushes and unloads evicted files in the background.
+	 */
+	private static volatile ExecutorService unloader;
+
+	/**
+	 * The file manager the loaded files are registered with.
+	 */
+	@Getter
+	private final FileManager fileManager;
+
+	/**
+	 * The directory the guilds' files are kept in.
+	 */
+	@Getter
+	private final Path directory;
+
+	/**
+	 * The maximum number of loaded files.
+	 */
+	@Getter
+	private final int capacity;
+
+	/**
+	 * The default configuration of new guilds, or null if new guilds start empty.
+	 */
+	@Getter
+	@Setter
+	private volatile File defaults;
+
+	/**
+	 * The directory the files' snapshots are kept in, or null if snapshots are
+	 * disabled.
+	 */
+	@Getter
+	@Setter
+	private volatile Path snapshotDirectory;
+
+	/**
+	 * The loaded files, in least recently used order.
+	 */
+	private final LinkedHashMap<Long, ConfigurationFile> loaded;
+
+	/**
+	 * The files that have been unloaded but may still be being flushed.
+	 */
+	private final ConcurrentHashMap<Long, ConfigurationFile> unloading;
+
+	/**
+	 * The files that have been unloaded and flushed, kept until they are no longer
+	 * referenced.
+	 */
+	private final ConcurrentHashMap<Long, ReleasedFile> released;
+
+	/**
+	 * The queue the released files are enqueued on once they are no longer
+	 * referenced.
+	 */
+	private final ReferenceQueue<ConfigurationFile> collected;
+
+	/**
+	 * Create a new GuildConfigurationStore.
+	 * 
+	 * @param fileManager The file manager to register the loaded files with.
+	 * @param directory   The directory to keep the guilds' files in.
+	 * @param capacity    The maximum number of loaded files.
+	 */
+	public GuildConfigurationStore(@Nonnull FileManager fileManager, @Nonnull Path directory, int capacity) {
+
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: The capacity must be at least 1!");
+
+		this.fileManager = fileManager;
+		this.directory = directory;
+		this.capacity = capacity;
+		this.defaults = null;
+		this.snapshotDirectory = null;
+		this.loaded = new LinkedHashMap<Long, ConfigurationFile>(16, 0.75f, true);
+		this.unloading = new ConcurrentHashMap<Long, ConfigurationFile>();
+		this.released = new ConcurrentHashMap<Long, ReleasedFile>();
+		this.collected = new ReferenceQueue<ConfigurationFile>();
+
+	}
+
+	/**
+	 * Get a guild's file, loading it if necessary.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> If the guild does not have a file yet, the returned
+	 * file holds the defaults and is written when it is first saved.
+	 * </p>
+	 * 
+	 * @param guildId The guild's id.
+	 * 
+	 * @return The guild's file.
+	 * 
+	 * @throws IOException If the file could not be loaded.
+	 */
+	public ConfigurationFile get(long guildId) throws IOException {
+
+		ConfigurationFile file;
+
+		synchronized (this.loaded) {
+
+			file = this.loaded.get(guildId);
+
+			if (file != null)
+				return file;
+
+			file = this.reclaim(guildId);
+
+		}
+
+		if (file == null)
+			file = this.open(guildId);
+
+		Map<Long, ConfigurationFile> evicted = new LinkedHashMap<Long, ConfigurationFile>();
+
+		synchronized (this.loaded) {
+
+			ConfigurationFile current = this.loaded.get(guildId);
+
+			if (current != null)
+				return current;
+
+			// The guild's file may have been loaded and unloaded again while it was being
+			// opened, in which case that instance holds the newest values.
+			ConfigurationFile reclaimed = this.reclaim(guildId);
+
+			if (reclaimed != null)
+				file = reclaimed;
+
+			this.unloading.remove(guildId, file);
+			this.loaded.put(guildId, file);
+
+			Iterator<Map.Entry<Long, ConfigurationFile>> iterator = this.loaded.entrySet().iterator();
+
+			while (this.loaded.size() > this.capacity) {
+
+				Map.Entry<Long, ConfigurationFile> eldest = iterator.next();
+
+				this.unloading.put(eldest.getKey(), eldest.getValue());
+				evicted.put(eldest.getKey(), eldest.getValue());
+				iterator.remove();
+
+			}
+
+		}
+
+		this.fileManager.addFile(file.getPath(), file);
+
+		for (Map.Entry<Long, ConfigurationFile> unloaded : evicted.entrySet())
+			this.unloadLater(unloaded.getKey(), unloaded.getValue());
+
+		return file;
+
+	}
+
+	/**
+	 * Check if a guild's file is loaded.
+	 * 
+	 * @param guildId The guild's id.
+	 * 
+	 * @return The truth value associated with the guild's file being loaded.
+	 */
+	public boolean isLoaded(long guildId) {
+
+		synchronized (this.loaded) {
+
+			return this.loaded.containsKey(guildId);
+
+		}
+
+	}
+
+	/**
+	 * Get the number of loaded files.
+	 * 
+	 * @return The number of loaded files.
+	 */
+	public int size() {
+
+		synchronized (this.loaded) {
+
+			return this.loaded.size();
+
+		}
+
+	}
+
+	/**
+	 * Flush and unload every file on the calling thread.
+	 */
+	public void unloadAll() {
+
+		Map<Long, ConfigurationFile> evicted;
+
+		synchronized (this.loaded) {
+
+			this.unloading.putAll(this.loaded);
+			evicted = new LinkedHashMap<Long, ConfigurationFile>(this.unloading);
+			this.loaded.clear();
+
+		}
+
+		for (Map.Entry<Long, ConfigurationFile> entry : evicted.entrySet())
+			this.unload(entry.getKey(), entry.getValue());
+
+	}
+
+	/**
+	 * Create a guild's file, and load it if it exists.
+	 * 
+	 * @param guildId The guild's id.
+	 * 
+	 * @return The guild's file.
+	 * 
+	 * @throws IOException If the file could not be loaded.
+	 */
+	private ConfigurationFile open(long guildId) throws IOException {
+
+		ConfigurationFile file = new GuildFile(this, guildId,
+				this.directory.resolve(Long.toUnsignedString(guildId) + ".yml"));
+		File defaults = this.defaults;
+
+		file.setDefaults(defaults);
+		file.setSnapshotDirectory(this.snapshotDirectory);
+
+		if (!file.exists() && defaults != null)
+			file.create();
+
+		if (file.exists())
+			file.load();
+
+		return file;
+
+	}
+
+	/**
+	 * Find a guild's unloaded file, if it has not been discarded yet.
+	 * 
+	 * <p>
+	 * This must be called while holding the lock on the loaded files.
+	 * </p>
+	 * 
+	 * @param guildId The guild's id.
+	 * 
+	 * @return The guild's unloaded file, or null if there is none.
+	 */
+	private ConfigurationFile reclaim(long guildId) {
+
+		ReleasedFile reference;
+
+		while ((reference = (ReleasedFile) this.collected.poll()) != null)
+			this.released.remove(reference.guildId, reference);
+
+		// A file that is still being unloaded holds the newest values, so it is used
+		// instead of the copy on the disk.
+		ConfigurationFile file = this.unloading.get(guildId);
+
+		if (file != null)
+			return file;
+
+		reference = this.released.remove(guildId);
+
+		return reference == null ? null : reference.get();
+
+	}
+
+	/**
+	 * Flush an unloaded file, and unregister it.
+	 * 
+	 * <p>
+	 * A file stays registered until it has been flushed, so it is written by
+	 * {@link me.myles.discordbotapi.data.file.FileManager#flushAll()
+	 * FileManager.flushAll()} if the bot stops first. A file that could not be
+	 * flushed is kept, so it is used again if the guild is accessed, and retried
+	 * by {@link #unloadAll()}. A file that is loaded again while it is being
+	 * flushed stays registered.
+	 * </p>
+	 * 
+	 * @param guildId The guild's id.
+	 * @param file    The file.
+	 */
+	private void unload(long guildId, ConfigurationFile file) {
+
+		try {
+
+			file.flush();
+
+		} catch (IOException e) {
+
+			LOGGER.error("Could not save the configuration file {}", file, e);
+			return;
+
+		}
+
+		synchronized (this.loaded) {
+
+			if (!this.unloading.remove(guildId, file))
+				return;
+
+			this.fileManager.removeFile(file.getPath());
+			this.released.put(guildId, new ReleasedFile(guildId, file, this.collected));
+
+		}
+
+		// The file may have been saved while it was being flushed.
+		if (file.isDirty())
+			this.saved(guildId, file);
+
+	}
+
+	/**
+	 * Flush and unregister an unloaded file in the background.
+	 * 
+	 * @param guildId The guild's id.
+	 * @param file    The file.
+	 */
+	private void unloadLater(long guildId, ConfigurationFile file) {
+
+		getUnloader().execute(() -> this.unload(guildId, file));
+
+	}
+
+	/**
+	 * Register a released file again after it has been saved, and unload it once
+	 * it has been written.
+	 * 
+	 * @param guildId The guild's id.
+	 * @param file    The file that was saved.
+	 */
+	private void saved(long guildId, ConfigurationFile file) {
+
+		ReleasedFile reference = this.released.get(guildId);
+
+		if (reference == null || reference.get() != file)
+			return;
+
+		synchronized (this.loaded) {
+
+			if (!this.released.remove(guildId, reference))
+				return;
+
+			this.unloading.put(guildId, file);
+
+		}
+
+		this.fileManager.addFile(file.getPath(), file);
+		this.unloadLater(guildId, file);
+
+	}
+
+	/**
+	 * A reference to a file that has been unloaded and flushed.
+	 * 
+	 * @author Myles Deslippe
+	 */
+	private static final class ReleasedFile extends WeakReference<ConfigurationFile> {
+
+		/**
+		 * The guild's id.
+		 */
+		private final long guildId;
+
+		/**
+		 * Create a reference to a released file.
+		 * 
+		 * @param guildId The guild's id.
+		 * @param file    The file.
+		 * @param queue   The queue to enqueue the reference on once the file is no
+		 *                longer referenced.
+		 */
+		ReleasedFile(long guildId, @Nonnull ConfigurationFile file, @Nonnull ReferenceQueue<ConfigurationFile> queue) {
+
+			super(file, queue);
+			this.guildId = guildId;
+
+		}
+
+	}
+
+	/**
+	 * Get the executor that flushes and unloads evicted files, creating it if
+	 * necessary.
+	 * 
+	 * @return The executor.
+	 */
+	private static ExecutorService getUnloader() {
+
+		ExecutorService current = unloader;
+
+		if (current != null)
+			return current;
+
+		synchronized (GuildConfigurationStore.class) {
+
+			if (unloader == null) {
+
+				ThreadPoolExecutor created = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+						new LinkedBlockingQueue<Runnable>(), runnable -> {
+
+							Thread thread = new Thread(runnable, "GuildConfigurationStore-Unloader");
+							thread.setDaemon(true);
+							return thread;
+
+						});
+
+				unloader = created;
+
+			}
+
+			return unloader;
+
+		}
+
+	}
+
+	/**
+	 * A guild's file, which tells its store when it is saved.
+	 * 
+	 * @author Myles Deslippe
+	 */
+	private static final class GuildFile extends ConfigurationFile {
+
+		/**
+		 * The Serial ID.
+		 */
+		private static final long serialVersionUID = -4106387526384270915L;
+
+		/**
+		 * The store the file belongs to.
+		 */
+		private final transient GuildConfigurationStore store;
+
+		/**
+		 * The guild's id.
+		 */
+		private final long guildId;
+
+		/**
+		 * Create a guild's file.
+		 * 
+		 * @param store   The store the file belongs to.
+		 * @param guildId The guild's id.
+		 * @param path    The path of the file.
+		 */
+		GuildFile(@Nonnull GuildConfigurationStore store, long guildId, @Nonnull Path path) {
+
+			super(path);
+			this.store = store;
+			this.guildId = guildId;
+
+		}
+
+		@Override
+		public void save() {
+
+			super.save();
+
+			if (this.store != null)
+				this.store.saved(this.guildId, this);
+
+		}
+
+	}
+
+}
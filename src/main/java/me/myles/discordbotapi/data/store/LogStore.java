@@ -0,0 +1,1309 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.data.store;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+import lombok.Setter;
+import me.myles.discordbotapi.data.file.AbstractConfigurationFile;
+
+/**
+ * An embedded, append-only key-value store.
+ * 
+ * <p>
+ * Every change is appended to the end of the file as a checksummed record, so
+ * a small update costs one sequential write instead of rewriting the whole
+ * file. The current values are held in memory, so reads never touch the disk.
+ * </p>
+ * 
+ * <p>
+ * Changes are appended by a writer thread that commits every change waiting in
+ * its queue with one write and one sync. Once the file has grown well past the
+ * size of the live values, the writer compacts it by writing the live values
+ * to a new file and moving it over the old one.
+ * </p>
+ * 
+ * <p>
+ * Reads are not isolated from uncommitted changes. A change is visible to
+ * {@link #get(String)} as soon as {@link #put(String, byte[])} or
+ * {@link #remove(String)} returns, before it has been written, and a crash
+ * before the change's future completes loses it. Wait for the future, or call
+ * {@link #flush()}, before acting on a change that must survive a crash.
+ * </p>
+ * 
+ * <p>
+ * When the store is loaded, the records are replayed in order. A torn or
+ * corrupt record at the end of the file, left by a crash during a write, is
+ * truncated away.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class LogStore extends AbstractConfigurationFile {
+
+	/**
+	 * The Serial ID.
+	 */
+	private static final long serialVersionUID = 3185220637153491372L;
+
+	/**
+	 * The default size the file must reach before it is compacted, in bytes.
+	 */
+	public static final long DEFAULT_COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
+	/**
+	 * The store logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(LogStore.class);
+
+	/**
+	 * The size of a record's header: its checksum, key length and value length.
+	 */
+	private static final int HEADER_SIZE = 12;
+
+	/**
+	 * The value length that marks a removed key.
+	 */
+	private static final int TOMBSTONE = -1;
+
+	/**
+	 * The maximum length of a key, in bytes.
+	 */
+	private static final int MAX_KEY_LENGTH = 0xFFFF;
+
+	/**
+	 * The maximum number of changes committed together.
+	 */
+	private static final int MAX_BATCH = 1024;
+
+	/**
+	 * The number of milliseconds between compaction checks while the store is
+	 * idle.
+	 */
+	private static final long COMPACTION_CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * The truth value associated with every commit being synced to the disk.
+	 */
+	@Getter
+	@Setter
+	private volatile boolean syncWrites;
+
+	/**
+	 * The size the file must reach before it is compacted, in bytes.
+	 */
+	@Getter
+	@Setter
+	private volatile long compactionThreshold;
+
+	/**
+	 * The current values.
+	 * 
+	 * <p>
+	 * The values are replaced while holding the append lock when they are rebuilt
+	 * after a failed write.
+	 * </p>
+	 */
+	private transient volatile ConcurrentHashMap<String, byte[]> values;
+
+	/**
+	 * The changes waiting to be committed.
+	 */
+	private final transient LinkedBlockingQueue<Append> queue;
+
+	/**
+	 * The lock that keeps the order of the queue the same as the order the values
+	 * were changed in.
+	 */
+	private final transient Object appendLock;
+
+	/**
+	 * The writer thread, this will be null while the store is not loaded.
+	 */
+	private transient volatile Thread writer;
+
+	/**
+	 * The operation that closes the store, this will be null unless the store is
+	 * closing. Guarded by the append lock.
+	 */
+	private transient Append closing;
+
+	/**
+	 * The truth value associated with the writer having stopped without being
+	 * closed. Guarded by the append lock.
+	 */
+	private transient boolean stopped;
+
+	/**
+	 * The failure that stopped the store from writing, this will be null unless
+	 * the file could not be restored after a failed write, or the writer stopped
+	 * unexpectedly.
+	 */
+	private transient volatile IOException failure;
+
+	/**
+	 * The channel the records are appended to, only used by the writer thread.
+	 */
+	private transient FileChannel channel;
+
+	/**
+	 * The size of the file, only used by the writer thread.
+	 */
+	private transient long logSize;
+
+	/**
+	 * The size of the file after it was last compacted, only used by the writer
+	 * thread.
+	 */
+	private transient long compactedSize;
+
+	/**
+	 * Create a new LogStore.
+	 * 
+	 * @param file The file that will be used to store the values.
+	 */
+	public LogStore(File file) {
+
+		super(file);
+		this.syncWrites = true;
+		this.compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+		this.values = new ConcurrentHashMap<String, byte[]>();
+		this.queue = new LinkedBlockingQueue<Append>();
+		this.appendLock = new Object();
+
+	}
+
+	/**
+	 * Create a new LogStore.
+	 * 
+	 * @param path A path to the file that will be used to store the values.
+	 */
+	public LogStore(String path) {
+
+		super(path);
+		this.syncWrites = true;
+		this.compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+		this.values = new ConcurrentHashMap<String, byte[]>();
+		this.queue = new LinkedBlockingQueue<Append>();
+		this.appendLock = new Object();
+
+	}
+
+	/**
+	 * Create a new LogStore.
+	 * 
+	 * @param path A path to the file that will be used to store the values.
+	 */
+	public LogStore(Path path) {
+
+		super(path);
+		this.syncWrites = true;
+		this.compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+		this.values = new ConcurrentHashMap<String, byte[]>();
+		this.queue = new LinkedBlockingQueue<Append>();
+		this.appendLock = new Object();
+
+	}
+
+	/**
+	 * Load the store, replaying the file and starting the writer.
+	 * 
+	 * <p>
+	 * The file is created if it does not exist.
+	 * </p>
+	 * 
+	 * @throws IOException If the file could not be read.
+	 */
+	@Override
+	public synchronized void load() throws IOException {
+
+		if (this.writer != null)
+			throw new IllegalStateException("Error: The store is already loaded!");
+
+		Path path = this.getAbsoluteFile().toPath();
+
+		if (path.getParent() != null)
+			Files.createDirectories(path.getParent());
+
+		this.createIfNotExists();
+
+		// A compaction that was interrupted leaves its new file behind, the old file
+		// is still complete.
+		Files.deleteIfExists(compactionPath(path));
+
+		ConcurrentHashMap<String, byte[]> values = new ConcurrentHashMap<String, byte[]>();
+		long size = Files.size(path);
+		long valid = replay(path, values, size);
+
+		if (valid < size) {
+
+			LOGGER.warn("Truncating {} bytes of incomplete records from the end of {}", size - valid, this);
+
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+
+				channel.truncate(valid);
+				channel.force(true);
+
+			}
+
+		}
+
+		synchronized (this.appendLock) {
+
+			this.values = values;
+			this.closing = null;
+			this.stopped = false;
+			this.failure = null;
+
+		}
+
+		this.logSize = valid;
+		this.compactedSize = this.liveSize();
+		this.channel = FileChannel.open(path, StandardOpenOption.WRITE);
+		this.channel.position(this.logSize);
+
+		Thread writer = new Thread(this::write, "LogStore-Writer-" + this.getName());
+		writer.setDaemon(true);
+		this.writer = writer;
+		writer.start();
+
+	}
+
+	/**
+	 * Changes are appended as they are made, so this does nothing.
+	 * 
+	 * <p>
+	 * Use {@link #flush()} to wait until the changes are on the disk.
+	 * </p>
+	 */
+	@Override
+	public void save() {
+
+	}
+
+	/**
+	 * Wait until every change made so far has been written and synced to the
+	 * disk.
+	 * 
+	 * @throws IOException If the changes could not be written.
+	 */
+	@Override
+	public void flush() throws IOException {
+
+		CompletableFuture<Void> future;
+
+		synchronized (this.appendLock) {
+
+			if (this.writer == null)
+				return;
+
+			// Closing the store flushes it.
+			if (this.closing != null)
+				future = this.closing.future;
+			else if (this.failure != null)
+				throw new IOException("Error: The store could not be written!", this.failure);
+			else
+				future = this.enqueue(new Append(Operation.FLUSH, null, null));
+
+		}
+
+		await(future);
+
+	}
+
+	/**
+	 * Compact the file, keeping only the live values.
+	 * 
+	 * @return A future that completes when the file has been compacted.
+	 */
+	public CompletableFuture<Void> compact() {
+
+		return this.enqueue(new Append(Operation.COMPACT, null, null));
+
+	}
+
+	/**
+	 * Flush the pending changes, and stop the writer.
+	 * 
+	 * <p>
+	 * Changes made after the store starts closing are rejected.
+	 * </p>
+	 * 
+	 * @throws IOException If the changes could not be written.
+	 */
+	public synchronized void close() throws IOException {
+
+		Thread writer = this.writer;
+
+		if (writer == null)
+			return;
+
+		CompletableFuture<Void> future;
+
+		synchronized (this.appendLock) {
+
+			if (this.closing == null) {
+
+				this.closing = new Append(Operation.CLOSE, null, null);
+
+				// A writer that has stopped will never take the operation.
+				if (this.stopped)
+					complete(this.closing, this.failure);
+				else
+					this.queue.add(this.closing);
+
+			}
+
+			future = this.closing.future;
+
+		}
+
+		try {
+
+			await(future);
+
+		} finally {
+
+			try {
+
+				writer.join();
+
+			} catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+			}
+
+			this.writer = null;
+
+		}
+
+	}
+
+	/**
+	 * Get a value.
+	 * 
+	 * @param key The value's key.
+	 * 
+	 * @return A copy of the value, or null if the key is not set.
+	 */
+	@Nullable
+	public byte[] get(@Nonnull String key) {
+
+		byte[] value = this.values.get(key);
+
+		return value == null ? null : value.clone();
+
+	}
+
+	/**
+	 * Get a string value.
+	 * 
+	 * @param key The value's key.
+	 * 
+	 * @return The value, or null if the key is not set.
+	 */
+	@Nullable
+	public String getString(@Nonnull String key) {
+
+		byte[] value = this.values.get(key);
+
+		return value == null ? null : new String(value, StandardCharsets.UTF_8);
+
+	}
+
+	/**
+	 * Get a long value.
+	 * 
+	 * @param key      The value's key.
+	 * @param fallback The value to return if the key is not set.
+	 * 
+	 * @return The value, or the fallback if the key is not set.
+	 */
+	public long getLong(@Nonnull String key, long fallback) {
+
+		byte[] value = this.values.get(key);
+
+		if (value == null)
+			return fallback;
+
+		if (value.length != Long.BYTES)
+			throw new IllegalStateException("Error: The value of " + key + " is not a long!");
+
+		return ByteBuffer.wrap(value).getLong();
+
+	}
+
+	/**
+	 * Set a value.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The value can be read as soon as this returns, but it
+	 * is only durable once the returned future completes.
+	 * </p>
+	 * 
+	 * @param key   The value's key.
+	 * @param value The value.
+	 * 
+	 * @return A future that completes when the change has been committed.
+	 */
+	public CompletableFuture<Void> put(@Nonnull String key, @Nonnull byte[] value) {
+
+		byte[] keyBytes = encodeKey(key);
+		byte[] copy = value.clone();
+
+		synchronized (this.appendLock) {
+
+			CompletableFuture<Void> future = this.enqueue(new Append(Operation.WRITE, keyBytes, copy));
+
+			this.values.put(key, copy);
+			return future;
+
+		}
+
+	}
+
+	/**
+	 * Set a string value.
+	 * 
+	 * @param key   The value's key.
+	 * @param value The value.
+	 * 
+	 * @return A future that completes when the change has been committed.
+	 */
+	public CompletableFuture<Void> putString(@Nonnull String key, @Nonnull String value) {
+
+		return this.put(key, value.getBytes(StandardCharsets.UTF_8));
+
+	}
+
+	/**
+	 * Set a long value.
+	 * 
+	 * @param key   The value's key.
+	 * @param value The value.
+	 * 
+	 * @return A future that completes when the change has been committed.
+	 */
+	public CompletableFuture<Void> putLong(@Nonnull String key, long value) {
+
+		return this.put(key, ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+
+	}
+
+	/**
+	 * Remove a value.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The value is gone as soon as this returns, but the
+	 * removal is only durable once the returned future completes.
+	 * </p>
+	 * 
+	 * @param key The value's key.
+	 * 
+	 * @return A future that completes when the change has been committed.
+	 */
+	public CompletableFuture<Void> remove(@Nonnull String key) {
+
+		byte[] keyBytes = encodeKey(key);
+
+		synchronized (this.appendLock) {
+
+			CompletableFuture<Void> future = this.enqueue(new Append(Operation.WRITE, keyBytes, null));
+
+			this.values.remove(key);
+			return future;
+
+		}
+
+	}
+
+	/**
+	 * Check if a key is set.
+	 * 
+	 * @param key The key.
+	 * 
+	 * @return The truth value associated with the key being set.
+	 */
+	public boolean contains(@Nonnull String key) {
+
+		return this.values.containsKey(key);
+
+	}
+
+	/**
+	 * Get the keys that are set.
+	 * 
+	 * @return An unmodifiable view of the keys.
+	 */
+	public Set<String> keys() {
+
+		return Collections.unmodifiableSet(this.values.keySet());
+
+	}
+
+	/**
+	 * Get the number of keys that are set.
+	 * 
+	 * @return The number of keys.
+	 */
+	public int size() {
+
+		return this.values.size();
+
+	}
+
+	/**
+	 * Queue an operation for the writer.
+	 * 
+	 * @param append The operation.
+	 * 
+	 * @return The operation's future.
+	 * 
+	 * @throws IllegalStateException If the store is not loaded, is closing, or
+	 *                               could not be written.
+	 */
+	private CompletableFuture<Void> enqueue(Append append) {
+
+		synchronized (this.appendLock) {
+
+			if (this.writer == null)
+				throw new IllegalStateException("Error: The store has not been loaded!");
+
+			if (this.closing != null)
+				throw new IllegalStateException("Error: The store has been closed!");
+
+			if (this.failure != null)
+				throw new IllegalStateException("Error: The store could not be written, it must be reloaded!",
+						this.failure);
+
+			this.queue.add(append);
+
+			return append.future;
+
+		}
+
+	}
+
+	/**
+	 * Replay the records of a file.
+	 * 
+	 * @param path   The path of the file.
+	 * @param values The values to replay the records into.
+	 * @param size   The size of the file.
+	 * 
+	 * @return The size of the valid records, records after a torn or corrupt
+	 *         record are not replayed.
+	 * 
+	 * @throws IOException If the file could not be read.
+	 */
+	private static long replay(Path path, Map<String, byte[]> values, long size) throws IOException {
+
+		long offset = 0;
+		CRC32 crc = new CRC32();
+
+		try (InputStream stream = Files.newInputStream(path);
+				DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+
+			while (offset + HEADER_SIZE <= size) {
+
+				int checksum = input.readInt();
+				int keyLength = input.readInt();
+				int valueLength = input.readInt();
+				long remaining = size - offset - HEADER_SIZE;
+
+				if (keyLength < 0 || keyLength > MAX_KEY_LENGTH || valueLength < TOMBSTONE
+						|| keyLength + (long) Math.max(valueLength, 0) > remaining)
+					break;
+
+				byte[] key = new byte[keyLength];
+				byte[] value = valueLength == TOMBSTONE ? null : new byte[valueLength];
+
+				input.readFully(key);
+
+				if (value != null)
+					input.readFully(value);
+
+				if (checksum != checksum(crc, keyLength, valueLength, key, value))
+					break;
+
+				if (value == null)
+					values.remove(new String(key, StandardCharsets.UTF_8));
+				else
+					values.put(new String(key, StandardCharsets.UTF_8), value);
+
+				offset += HEADER_SIZE + keyLength + (value == null ? 0 : valueLength);
+
+			}
+
+		} catch (EOFException e) {
+
+			// The lengths were checked against the size, so this only happens if the
+			// file shrank while it was being read.
+
+		}
+
+		return offset;
+
+	}
+
+	/**
+	 * Commit queued changes until the store is closed.
+	 * 
+	 * <p>
+	 * If the writer is interrupted or fails unexpectedly, every operation that is
+	 * still waiting is failed, so no caller waits for it forever.
+	 * </p>
+	 */
+	private void write() {
+
+		List<Append> batch = new ArrayList<Append>();
+
+		try {
+
+			this.commit(batch);
+
+		} catch (RuntimeException | Error e) {
+
+			this.abandon(batch, new IOException("Error: The store's writer failed!", e));
+			throw e;
+
+		}
+
+	}
+
+	/**
+	 * Commit queued changes until the store is closed or the writer is
+	 * interrupted.
+	 * 
+	 * @param batch The list to collect each batch in.
+	 */
+	private void commit(List<Append> batch) {
+
+		CRC32 crc = new CRC32();
+
+		while (true) {
+
+			Append first;
+
+			try {
+
+				first = this.queue.poll(COMPACTION_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+
+			} catch (InterruptedException e) {
+
+				this.abandon(batch, new InterruptedIOException("Error: The store's writer was interrupted!"));
+				return;
+
+			}
+
+			if (first == null) {
+
+				this.compactIfDue();
+				continue;
+
+			}
+
+			batch.add(first);
+			this.queue.drainTo(batch, MAX_BATCH - 1);
+
+			boolean sync = false;
+			boolean compact = false;
+			boolean close = false;
+
+			for (Append append : batch) {
+
+				sync |= append.operation == Operation.FLUSH;
+				compact |= append.operation == Operation.COMPACT;
+				close |= append.operation == Operation.CLOSE;
+
+			}
+
+			IOException failure = this.failure;
+
+			if (failure == null)
+				failure = this.append(crc, batch, sync || close);
+
+			// Changes are acknowledged before compacting, they are already on the disk.
+			for (Append append : batch)
+				if (append.operation == Operation.WRITE || append.operation == Operation.FLUSH)
+					complete(append, failure);
+
+			if (failure == null && compact) {
+
+				IOException compactionFailure = null;
+
+				try {
+
+					this.compactNow(crc);
+
+				} catch (IOException e) {
+
+					LOGGER.error("Could not compact the store {}", this, e);
+					compactionFailure = e;
+
+				}
+
+				for (Append append : batch)
+					if (append.operation == Operation.COMPACT)
+						complete(append, compactionFailure);
+
+			} else {
+
+				for (Append append : batch)
+					if (append.operation == Operation.COMPACT)
+						complete(append, failure);
+
+				if (failure == null)
+					this.compactIfDue();
+
+			}
+
+			if (close) {
+
+				try {
+
+					this.channel.close();
+
+				} catch (IOException e) {
+
+					failure = failure == null ? e : failure;
+
+				}
+
+				for (Append append : batch)
+					if (append.operation == Operation.CLOSE)
+						complete(append, failure);
+
+				return;
+
+			}
+
+			batch.clear();
+
+		}
+
+	}
+
+	/**
+	 * Stop the store from writing, failing every operation that is still waiting.
+	 * 
+	 * @param batch The batch the writer was committing, if any.
+	 * @param cause The reason the writer stopped.
+	 */
+	private void abandon(List<Append> batch, IOException cause) {
+
+		synchronized (this.appendLock) {
+
+			if (this.failure == null)
+				this.failure = cause;
+
+			this.stopped = true;
+			this.queue.drainTo(batch);
+
+		}
+
+		// Operations that were already completed are not changed.
+		for (Append append : batch)
+			complete(append, cause);
+
+		try {
+
+			this.channel.close();
+
+		} catch (IOException e) {
+
+			cause.addSuppressed(e);
+
+		}
+
+	}
+
+	/**
+	 * Append the records of a batch.
+	 * 
+	 * <p>
+	 * If the records could not be written, the file is truncated back to its size
+	 * before the batch, and the values are rebuilt from the file and the changes
+	 * that are still queued. If that fails as well, the store stops writing until
+	 * it is reloaded.
+	 * </p>
+	 * 
+	 * @param crc   The checksum to reuse.
+	 * @param batch The batch.
+	 * @param sync  The truth value associated with the file being synced even if
+	 *              commits are not synced.
+	 * 
+	 * @return The reason the records could not be written, or null if they were
+	 *         written.
+	 */
+	private IOException append(CRC32 crc, List<Append> batch, boolean sync) {
+
+		long size = this.logSize;
+
+		try {
+
+			ByteBuffer buffer = encode(crc, batch);
+
+			if (buffer.hasRemaining()) {
+
+				long written = writeFully(this.channel, buffer);
+
+				sync |= this.syncWrites;
+				this.logSize = size + written;
+
+			}
+
+			if (sync)
+				this.channel.force(false);
+
+			return null;
+
+		} catch (IOException | RuntimeException e) {
+
+			IOException failure = e instanceof IOException ? (IOException) e : new IOException(e);
+
+			LOGGER.error("Could not write to the store {}", this, failure);
+			this.restore(size, failure);
+
+			return failure;
+
+		}
+
+	}
+
+	/**
+	 * Truncate the file back to a size, and rebuild the values from it.
+	 * 
+	 * @param size  The size of the file before the failed batch.
+	 * @param cause The reason the batch could not be written.
+	 */
+	private void restore(long size, IOException cause) {
+
+		try {
+
+			this.channel.truncate(size);
+			this.channel.position(size);
+			this.logSize = size;
+
+			// The values of the failed batch were already applied, so rebuild them from
+			// the file and the changes that were made after the batch.
+			synchronized (this.appendLock) {
+
+				ConcurrentHashMap<String, byte[]> values = new ConcurrentHashMap<String, byte[]>();
+
+				if (replay(this.getAbsoluteFile().toPath(), values, size) != size)
+					throw new IOException("Error: The records of the store could not be replayed!");
+
+				for (Append append : this.queue) {
+
+					if (append.operation != Operation.WRITE)
+						continue;
+
+					if (append.value == null)
+						values.remove(new String(append.key, StandardCharsets.UTF_8));
+					else
+						values.put(new String(append.key, StandardCharsets.UTF_8), append.value);
+
+				}
+
+				this.values = values;
+
+			}
+
+		} catch (IOException | RuntimeException e) {
+
+			e.addSuppressed(cause);
+			this.failure = e instanceof IOException ? (IOException) e : new IOException(e);
+
+			LOGGER.error("Could not restore the store {}, it must be reloaded", this, e);
+
+		}
+
+	}
+
+	/**
+	 * Compact the file if it has grown well past the size of the live values.
+	 */
+	private void compactIfDue() {
+
+		if (this.failure != null || this.logSize < this.compactionThreshold || this.logSize < this.compactedSize * 2)
+			return;
+
+		try {
+
+			this.compactNow(new CRC32());
+
+		} catch (IOException e) {
+
+			LOGGER.error("Could not compact the store {}", this, e);
+
+		}
+
+	}
+
+	/**
+	 * Write the live values to a new file, and move it over the old one.
+	 * 
+	 * <p>
+	 * Changes that are still queued are appended to the new file afterwards, and
+	 * replaying them over the live values gives the same result.
+	 * </p>
+	 * 
+	 * @param crc The checksum to reuse.
+	 * 
+	 * @throws IOException If the file could not be compacted.
+	 */
+	private void compactNow(CRC32 crc) throws IOException {
+
+		Path path = this.getAbsoluteFile().toPath();
+		Path compacted = compactionPath(path);
+		long size = 0;
+
+		try (FileChannel output = FileChannel.open(compacted, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+			List<Append> records = new ArrayList<Append>(MAX_BATCH);
+
+			for (Map.Entry<String, byte[]> entry : this.values.entrySet()) {
+
+				records.add(new Append(Operation.WRITE, encodeKey(entry.getKey()), entry.getValue()));
+
+				if (records.size() == MAX_BATCH) {
+
+					size += writeFully(output, encode(crc, records));
+					records.clear();
+
+				}
+
+			}
+
+			size += writeFully(output, encode(crc, records));
+			output.force(true);
+
+		}
+
+		this.channel.close();
+
+		try {
+
+			Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		} catch (AtomicMoveNotSupportedException e) {
+
+			Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING);
+
+		} finally {
+
+			this.channel = FileChannel.open(path, StandardOpenOption.WRITE);
+			this.channel.position(this.channel.size());
+
+		}
+
+		this.logSize = size;
+		this.compactedSize = size;
+
+	}
+
+	/**
+	 * Get the size the live values take up in the file.
+	 * 
+	 * @return The size of the live values, in bytes.
+	 */
+	private long liveSize() {
+
+		long size = 0;
+
+		for (Map.Entry<String, byte[]> entry : this.values.entrySet())
+			size += HEADER_SIZE + encodeKey(entry.getKey()).length + entry.getValue().length;
+
+		return size;
+
+	}
+
+	/**
+	 * Encode the records of a batch.
+	 * 
+	 * @param crc   The checksum to reuse.
+	 * @param batch The batch.
+	 * 
+	 * @return A buffer holding the records, ready to be written.
+	 */
+	private static ByteBuffer encode(CRC32 crc, List<Append> batch) {
+
+		int size = 0;
+
+		for (Append append : batch)
+			if (append.operation == Operation.WRITE)
+				size += HEADER_SIZE + append.key.length + (append.value == null ? 0 : append.value.length);
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+
+		for (Append append : batch) {
+
+			if (append.operation != Operation.WRITE)
+				continue;
+
+			int valueLength = append.value == null ? TOMBSTONE : append.value.length;
+
+			buffer.putInt(checksum(crc, append.key.length, valueLength, append.key, append.value));
+			buffer.putInt(append.key.length);
+			buffer.putInt(valueLength);
+			buffer.put(append.key);
+
+			if (append.value != null)
+				buffer.put(append.value);
+
+		}
+
+		buffer.flip();
+
+		return buffer;
+
+	}
+
+	/**
+	 * Compute the checksum of a record.
+	 * 
+	 * @param crc         The checksum to reuse.
+	 * @param keyLength   The length of the key.
+	 * @param valueLength The length of the value, or the tombstone.
+	 * @param key         The key.
+	 * @param value       The value, or null for a tombstone.
+	 * 
+	 * @return The checksum.
+	 */
+	private static int checksum(CRC32 crc, int keyLength, int valueLength, byte[] key, byte[] value) {
+
+		crc.reset();
+
+		for (int shift = 24; shift >= 0; shift -= 8)
+			crc.update(keyLength >>> shift);
+
+		for (int shift = 24; shift >= 0; shift -= 8)
+			crc.update(valueLength >>> shift);
+
+		crc.update(key, 0, key.length);
+
+		if (value != null)
+			crc.update(value, 0, value.length);
+
+		return (int) crc.getValue();
+
+	}
+
+	/**
+	 * Complete an operation's future.
+	 * 
+	 * @param append  The operation.
+	 * @param failure The reason the operation failed, or null if it succeeded.
+	 */
+	private static void complete(Append append, IOException failure) {
+
+		if (failure == null)
+			append.future.complete(null);
+		else
+			append.future.completeExceptionally(failure);
+
+	}
+
+	/**
+	 * Write a buffer to a channel.
+	 * 
+	 * @param channel The channel.
+	 * @param buffer  The buffer.
+	 * 
+	 * @return The number of bytes written.
+	 * 
+	 * @throws IOException If the buffer could not be written.
+	 */
+	private static int writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+		int size = buffer.remaining();
+
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+
+		return size;
+
+	}
+
+	/**
+	 * Encode a key.
+	 * 
+	 * @param key The key.
+	 * 
+	 * @return The encoded key.
+	 */
+	private static byte[] encodeKey(String key) {
+
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+
+		if (bytes.length > MAX_KEY_LENGTH)
+			throw new IllegalArgumentException("Error: The key " + key + " is too long!");
+
+		return bytes;
+
+	}
+
+	/**
+	 * Get the path a file is compacted into.
+	 * 
+	 * @param path The path of the file.
+	 * 
+	 * @return The path of the compacted file.
+	 */
+	private static Path compactionPath(Path path) {
+
+		return path.resolveSibling(path.getFileName() + ".compact");
+
+	}
+
+	/**
+	 * Wait for a future, unwrapping its failure.
+	 * 
+	 * @param future The future.
+	 * 
+	 * @throws IOException If the future failed.
+	 */
+	private static void await(CompletableFuture<Void> future) throws IOException {
+
+		try {
+
+			future.get();
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new IOException("Error: Interrupted while waiting for the store!", e);
+
+		} catch (ExecutionException e) {
+
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException(e.getCause());
+
+		}
+
+	}
+
+	/**
+	 * The operations the writer performs.
+	 */
+	private enum Operation {
+
+		/**
+		 * Append a record.
+		 */
+		WRITE,
+
+		/**
+		 * Sync the file.
+		 */
+		FLUSH,
+
+		/**
+		 * Compact the file.
+		 */
+		COMPACT,
+
+		/**
+		 * Sync the file, and stop the writer.
+		 */
+		CLOSE;
+
+	}
+
+	/**
+	 * A queued operation.
+	 */
+	private static final class Append {
+
+		/**
+		 * The operation.
+		 */
+		private final Operation operation;
+
+		/**
+		 * The encoded key of the record.
+		 */
+		private final byte[] key;
+
+		/**
+		 * The value of the record, or null for a tombstone.
+		 */
+		private final byte[] value;
+
+		/**
+		 * The future that completes when the operation has been performed.
+		 */
+		private final CompletableFuture<Void> future;
+
+		/**
+		 * Create a queued operation.
+		 * 
+		 * @param operation The operation.
+		 * @param key       The encoded key of the record.
+		 * @param value     The value of the record, or null for a tombstone.
+		 */
+		private Append(Operation operation, byte[] key, byte[] value) {
+
+			this.operation = operation;
+			this.key = key;
+			this.value = value;
+			this.future = new CompletableFuture<Void>();
+
+		}
+
+	}
+
+}
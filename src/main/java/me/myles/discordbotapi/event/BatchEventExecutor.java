@@ -0,0 +1,45 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+/**
+ * A direct invoker for a single bound batched
+ * {@link me.myles.discordbotapi.event.EventHandler EventHandler} method.
+ * 
+ * @author Myles Deslippe
+ */
+@FunctionalInterface
+interface BatchEventExecutor {
+
+	/**
+	 * Execute the event handler.
+	 * 
+	 * @param events The batch of events to pass to the handler.
+	 * 
+	 * @throws Throwable Anything thrown by the event handler.
+	 */
+	void execute(@Nonnull List<GenericEvent> events) throws Throwable;
+
+}
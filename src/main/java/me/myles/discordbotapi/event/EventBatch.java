@@ -0,0 +1,273 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+/**
+ * Accumulates events for a batched
+ * {@link me.myles.discordbotapi.event.EventHandler EventHandler}.
+ * 
+ * <p>
+ * A batch is delivered as soon as it is full, or once the batch window has
+ * elapsed since its first event was added, whichever comes first.
+ * </p>
+ * 
+ * <p>
+ * The scheduler only keeps time, a batch whose window has elapsed is handed to
+ * the event manager's batch executor (normally the bot's
+ * {@link me.myles.discordbotapi.bot.EventDispatcher EventDispatcher}) so that
+ * a slow handler never holds up the other batches.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class EventBatch {
+
+	/**
+	 * The batch logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(EventBatch.class);
+
+	/**
+	 * The scheduler that hands batches off when their window elapses.
+	 */
+	private static volatile ScheduledExecutorService scheduler;
+
+	/**
+	 * The invoker bound to the batched handler method.
+	 */
+	private final BatchEventExecutor executor;
+
+	/**
+	 * The executor that delivers batches whose window has elapsed.
+	 */
+	private final Executor dispatcher;
+
+	/**
+	 * The maximum number of events in a batch.
+	 */
+	private final int size;
+
+	/**
+	 * The maximum number of milliseconds a batch is held for.
+	 */
+	private final long window;
+
+	/**
+	 * The events waiting to be delivered.
+	 */
+	private ArrayList<GenericEvent> pending;
+
+	/**
+	 * The number of batches that have been started, used to ignore the window of
+	 * a batch that has already been delivered.
+	 */
+	private long generation;
+
+	/**
+	 * Create an event batch.
+	 * 
+	 * @param executor   The invoker bound to the batched handler method.
+	 * @param dispatcher The executor that delivers batches whose window has
+	 *                   elapsed.
+	 * @param size       The maximum number of events in a batch.
+	 * @param window     The maximum number of milliseconds a batch is held for.
+	 */
+	EventBatch(@Nonnull BatchEventExecutor executor, @Nonnull Executor dispatcher, int size, long window) {
+
+		this.executor = executor;
+		this.dispatcher = dispatcher;
+		this.size = size;
+		this.window = window;
+		this.pending = new ArrayList<GenericEvent>(size);
+
+	}
+
+	/**
+	 * Add an event to the batch, delivering the batch on the calling thread if it
+	 * is full.
+	 * 
+	 * @param event The event to add.
+	 */
+	void add(@Nonnull GenericEvent event) {
+
+		ArrayList<GenericEvent> full = null;
+		long started = -1;
+
+		synchronized (this) {
+
+			this.pending.add(event);
+
+			if (this.pending.size() >= this.size) {
+
+				full = this.pending;
+				this.pending = new ArrayList<GenericEvent>(this.size);
+				this.generation++;
+
+			} else if (this.pending.size() == 1) {
+
+				started = this.generation;
+
+			}
+
+		}
+
+		if (full != null) {
+
+			this.deliver(full);
+
+		} else if (started >= 0) {
+
+			long generation = started;
+			getScheduler().schedule(() -> this.expire(generation), this.window, TimeUnit.MILLISECONDS);
+
+		}
+
+	}
+
+	/**
+	 * Deliver the pending events on the calling thread, if there are any.
+	 */
+	void flush() {
+
+		List<GenericEvent> batch = this.take(-1);
+
+		if (batch != null)
+			this.deliver(batch);
+
+	}
+
+	/**
+	 * Hand the pending events to the dispatcher once their window has elapsed,
+	 * unless they have already been delivered.
+	 * 
+	 * @param generation The generation the window was started for.
+	 */
+	private void expire(long generation) {
+
+		List<GenericEvent> batch = this.take(generation);
+
+		if (batch == null)
+			return;
+
+		try {
+
+			this.dispatcher.execute(() -> this.deliver(batch));
+
+		} catch (RejectedExecutionException e) {
+
+			LOGGER.error("A batch of {} events could not be dispatched", batch.size(), e);
+
+		}
+
+	}
+
+	/**
+	 * Take the pending events if they belong to a generation.
+	 * 
+	 * @param generation The generation to take, or -1 to take any generation.
+	 * 
+	 * @return The pending events, or null if there are none to take.
+	 */
+	private List<GenericEvent> take(long generation) {
+
+		synchronized (this) {
+
+			if (this.pending.isEmpty() || (generation >= 0 && generation != this.generation))
+				return null;
+
+			List<GenericEvent> batch = this.pending;
+			this.pending = new ArrayList<GenericEvent>(this.size);
+			this.generation++;
+
+			return batch;
+
+		}
+
+	}
+
+	/**
+	 * Pass a batch to the handler.
+	 * 
+	 * @param batch The batch to deliver.
+	 */
+	private void deliver(@Nonnull List<GenericEvent> batch) {
+
+		try {
+
+			this.executor.execute(batch);
+
+		} catch (Throwable e) {
+
+			LOGGER.error("A batched event handler threw an uncaught exception", e);
+
+		}
+
+	}
+
+	/**
+	 * Get the scheduler that delivers batches when their window elapses, creating
+	 * it if necessary.
+	 * 
+	 * @return The scheduler.
+	 */
+	private static ScheduledExecutorService getScheduler() {
+
+		ScheduledExecutorService current = scheduler;
+
+		if (current != null)
+			return current;
+
+		synchronized (EventBatch.class) {
+
+			if (scheduler == null) {
+
+				ScheduledThreadPoolExecutor created = new ScheduledThreadPoolExecutor(1, runnable -> {
+
+					Thread thread = new Thread(runnable, "EventBatch-Flusher");
+					thread.setDaemon(true);
+					return thread;
+
+				});
+
+				scheduler = created;
+
+			}
+
+			return scheduler;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event;
+
+import javax.annotation.Nonnull;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+/**
+ * A direct invoker for a single bound
+ * {@link me.myles.discordbotapi.event.EventHandler EventHandler} method.
+ * 
+ * <p>
+ * Implementations are generated when a listener is registered, so dispatching
+ * an event does not go through reflection.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+@FunctionalInterface
+interface EventExecutor {
+
+	/**
+	 * Execute the event handler.
+	 * 
+	 * @param event The event to pass to the handler.
+	 * 
+	 * @throws Throwable Anything thrown by the event handler.
+	 */
+	void execute(@Nonnull GenericEvent event) throws Throwable;
+
+}
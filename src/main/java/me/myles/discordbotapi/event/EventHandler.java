@@ -48,4 +48,39 @@ public @interface EventHandler {
 	 */
 	public EventPriority priority() default EventPriority.NORMAL;
 
+	/**
+	 * Get the maximum number of events delivered to the event handler at once.
+	 * 
+	 * <p>
+	 * If this is greater than zero, the event handler is batched. Its parameter
+	 * must be a {@link java.util.List List} of the event type, for example
+	 * {@code List<MessageDeleteEvent>}, and events are accumulated until the batch
+	 * is full or the {@link #batchWindow() batch window} elapses.
+	 * </p>
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Batches are delivered outside of the normal dispatch
+	 * order, so the priority of a batched event handler only affects when the
+	 * event is added to the batch.
+	 * </p>
+	 * 
+	 * @return The maximum number of events in a batch, or zero if the event
+	 *         handler is not batched.
+	 */
+	public int batch() default 0;
+
+	/**
+	 * Get the maximum number of milliseconds a partial batch is held before it is
+	 * delivered.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The batch window of a batched event handler must be
+	 * positive, otherwise the handler is rejected when its listener is
+	 * registered.
+	 * </p>
+	 * 
+	 * @return The batch window in milliseconds.
+	 */
+	public long batchWindow() default 1000;
+
 }
@@ -18,9 +18,16 @@
  */
 package me.myles.discordbotapi.event;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
 
@@ -30,32 +37,78 @@ import net.dv8tion.jda.api.events.GenericEvent;
 /**
  * The event manager for Discord {@link me.myles.discordbotapi.bot.Bot Bot}'s.
  * 
+ * <p>
+ * Listeners can be registered and unregistered while events are being
+ * dispatched. Each change publishes a new immutable snapshot, and events that
+ * are already being dispatched finish against the snapshot they started with.
+ * </p>
+ * 
  * @author Myles Deslippe
  */
 public class EventManager {
 
 	/**
-	 * The registered listeners.
+	 * The current snapshot of the registered listeners.
 	 */
-	private final ArrayList<Listener> listeners;
+	private final AtomicReference<ListenerRegistry> registry;
+
+	/**
+	 * The executor that delivers batches whose window has elapsed.
+	 */
+	private final Executor batchExecutor;
 
 	/**
 	 * Create a Discord Bot event manager.
+	 * 
+	 * <p>
+	 * Batches whose window has elapsed are delivered on the common fork join
+	 * pool.
+	 * </p>
 	 */
 	public EventManager() {
 
-		this.listeners = new ArrayList<Listener>();
+		this(ForkJoinPool.commonPool());
+
+	}
+
+	/**
+	 * Create a Discord Bot event manager.
+	 * 
+	 * @param batchExecutor The executor that delivers batches whose window has
+	 *                      elapsed, such as the bot's
+	 *                      {@link me.myles.discordbotapi.bot.EventDispatcher
+	 *                      EventDispatcher}.
+	 */
+	public EventManager(@Nonnull Executor batchExecutor) {
+
+		this.registry = new AtomicReference<ListenerRegistry>(ListenerRegistry.EMPTY);
+		this.batchExecutor = batchExecutor;
 
 	}
 
 	/**
 	 * Register a listener with the event manager.
 	 * 
+	 * <p>
+	 * The listener's {@link me.myles.discordbotapi.event.EventHandler
+	 * EventHandler} methods are scanned once, when the listener is registered.
+	 * </p>
+	 * 
 	 * @param listener The listener to register.
+	 * 
+	 * @throws InvalidEventHandlerException If one of the listener's event handlers
+	 *                                      is invalid.
 	 */
 	public void registerListener(Listener listener) {
 
-		this.listeners.add(listener);
+		RegisteredHandler[] handlers = scan(listener, this.batchExecutor);
+		ListenerRegistry current;
+
+		do {
+
+			current = this.registry.get();
+
+		} while (!this.registry.compareAndSet(current, current.with(listener, handlers)));
 
 	}
 
@@ -66,7 +119,16 @@ public class EventManager {
 	 */
 	public void unregisterListener(Listener listener) {
 
-		this.listeners.remove(listener);
+		ListenerRegistry current;
+
+		do {
+
+			current = this.registry.get();
+
+		} while (!this.registry.compareAndSet(current, current.without(listener)));
+
+		for (RegisteredHandler handler : current.getHandlers(listener))
+			handler.flushBatch();
 
 	}
 
@@ -80,7 +142,7 @@ public class EventManager {
 	 */
 	public boolean containsListener(Listener listener) {
 
-		return this.listeners.contains(listener);
+		return this.registry.get().contains(listener);
 
 	}
 
@@ -91,7 +153,48 @@ public class EventManager {
 	 */
 	public Listener[] getAllListeners() {
 
-		return listeners.toArray(new Listener[0]);
+		return this.registry.get().getListeners();
+
+	}
+
+	/**
+	 * Get the event types that the registered listeners handle.
+	 * 
+	 * <p>
+	 * The types are the parameter types of the
+	 * {@link me.myles.discordbotapi.event.EventHandler EventHandler} methods, so
+	 * they may be super types such as
+	 * {@link net.dv8tion.jda.api.events.GenericEvent GenericEvent}.
+	 * </p>
+	 * 
+	 * @return An unmodifiable set of the handled event types.
+	 */
+	public Set<Class<? extends GenericEvent>> getSubscribedEventTypes() {
+
+		LinkedHashSet<Class<? extends GenericEvent>> types = new LinkedHashSet<Class<? extends GenericEvent>>();
+
+		for (Class<?> type : this.registry.get().getEventTypes())
+			types.add(type.asSubclass(GenericEvent.class));
+
+		return Collections.unmodifiableSet(types);
+
+	}
+
+	/**
+	 * Check if any registered listener handles an event type.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The lookup is cached, so this is cheap enough to call
+	 * for every event.
+	 * </p>
+	 * 
+	 * @param eventClass The event type to check for.
+	 * 
+	 * @return The truth value associated with a handler accepting the event type.
+	 */
+	public boolean hasHandlers(@Nonnull Class<? extends GenericEvent> eventClass) {
+
+		return this.registry.get().getHandlers(eventClass).length > 0;
 
 	}
 
@@ -100,64 +203,125 @@ public class EventManager {
 	 */
 	public void unregisterAllListeners() {
 
-		this.listeners.clear();
+		for (RegisteredHandler handler : this.registry.getAndSet(ListenerRegistry.EMPTY).getAllHandlers())
+			handler.flushBatch();
+
+	}
+
+	/**
+	 * Deliver the pending events of every batched
+	 * {@link me.myles.discordbotapi.event.EventHandler EventHandler} on the
+	 * calling thread.
+	 */
+	public void flushBatches() {
+
+		for (RegisteredHandler handler : this.registry.get().getAllHandlers())
+			handler.flushBatch();
 
 	}
 
 	/**
 	 * Dispatch an event.
 	 * 
+	 * <p>
+	 * An event is passed to every handler whose parameter type is the event's
+	 * class or one of its super types.
+	 * </p>
+	 * 
+	 * <p>
+	 * Event handlers may return a {@link java.util.concurrent.CompletionStage
+	 * CompletionStage}. Handlers of a lower priority will not be invoked until
+	 * every asynchronous handler of the higher priorities has completed, but the
+	 * calling thread will not wait for them. Instead, the next priority is invoked
+	 * by the thread that completes the last pending handler.
+	 * </p>
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> An exception thrown by a synchronous handler is
+	 * wrapped in an
+	 * {@link me.myles.discordbotapi.event.exception.InvalidEventHandlerException
+	 * InvalidEventHandlerException}, and the remaining handlers are skipped. If no
+	 * asynchronous handler is pending it is thrown from this method, where the
+	 * bot's {@link me.myles.discordbotapi.bot.EventDispatcher EventDispatcher}
+	 * logs it. Otherwise, it is thrown on the thread that completes the pending
+	 * handlers, and the returned future completes exceptionally with it.
+	 * </p>
+	 * 
 	 * @param event The event to dispatch.
+	 * 
+	 * @return A new future that completes when every handler has finished.
 	 */
-	public void dispatchEvent(@Nonnull final GenericEvent event) {
+	public CompletableFuture<Void> dispatchEvent(@Nonnull final GenericEvent event) {
 
-		for(EventPriority priority : EventPriority.getPrioritiesInOrder())		
-			for (Listener index : listeners)
-				this.executeEvent(index.getClass(), index, priority, event);
-			
+		return dispatch(this.registry.get().getHandlers(event.getClass()), 0, event);
 
 	}
 
 	/**
-	 * Execute an event.
+	 * Invoke handlers, starting at a position, until an asynchronous handler
+	 * leaves a priority with pending work.
 	 * 
-	 * @param clazz    The listener class.
-	 * @param executor The class executing the event.
-	 * @param priority The current priority to execute.
-	 * @param args     The event arguments.
+	 * @param handlers The handlers, in dispatch order.
+	 * @param from     The position of the first handler to invoke.
+	 * @param event    The event to pass to the handlers.
+	 * 
+	 * @return A future that completes when every handler from the position on has
+	 *         finished.
 	 */
-	private void executeEvent(@Nonnull Class<?> clazz, @Nonnull Object executor, @Nonnull EventPriority priority, @Nonnull final Object... args) {
+	private static CompletableFuture<Void> dispatch(@Nonnull RegisteredHandler[] handlers, int from,
+			@Nonnull GenericEvent event) {
 
-		for (Method index : clazz.getDeclaredMethods()) {
+		ArrayList<CompletableFuture<?>> pending = null;
 
-			if (index.getDeclaredAnnotation(EventHandler.class) != null) {
+		for (int i = from; i < handlers.length; i++) {
 
-				if (index.getParameterCount() == 0)
-					throw new InvalidEventHandlerException("Error: No paramater was specified!");
+			if (pending != null && handlers[i].getPriority() != handlers[i - 1].getPriority()) {
 
-				// Define variables that will be used for readability purposes.
-				String paramaterType = index.getParameterTypes()[0].getTypeName();
-				String argumentType = args[0].getClass().getTypeName();
-				String genericType = GenericEvent.class.getTypeName();
+				int next = i;
+				return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+						.thenCompose(ignored -> dispatch(handlers, next, event));
 
-				if (paramaterType.equals(argumentType) || paramaterType.equals(genericType)) {
+			}
 
-					try {
-						
-						if(index.getDeclaredAnnotation(EventHandler.class).priority() == priority)
-							index.invoke(executor, args);
+			CompletionStage<?> stage = handlers[i].invoke(event);
 
-					} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+			if (stage != null) {
 
-						throw new InvalidEventHandlerException(e);
+				if (pending == null)
+					pending = new ArrayList<CompletableFuture<?>>();
 
-					}
+				pending.add(stage.toCompletableFuture());
 
-				}
 			}
 
 		}
 
+		if (pending == null)
+			return CompletableFuture.completedFuture(null);
+
+		return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+
+	}
+
+	/**
+	 * Scan a listener for its event handlers.
+	 * 
+	 * @param listener      The listener to scan.
+	 * @param batchExecutor The executor that delivers batches whose window has
+	 *                      elapsed.
+	 * 
+	 * @return The listener's event handlers.
+	 */
+	private static RegisteredHandler[] scan(@Nonnull Listener listener, @Nonnull Executor batchExecutor) {
+
+		ArrayList<RegisteredHandler> found = new ArrayList<RegisteredHandler>();
+
+		for (Method index : listener.getClass().getDeclaredMethods())
+			if (index.getDeclaredAnnotation(EventHandler.class) != null)
+				found.add(new RegisteredHandler(listener, index, batchExecutor));
+
+		return found.toArray(ListenerRegistry.NO_HANDLERS);
+
 	}
 
 }
@@ -0,0 +1,278 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An immutable snapshot of the listeners registered with an
+ * {@link me.myles.discordbotapi.event.EventManager EventManager}.
+ * 
+ * <p>
+ * Registering or unregistering a listener creates a new snapshot, so threads
+ * that are dispatching events can read a snapshot without locking.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class ListenerRegistry {
+
+	/**
+	 * An empty handler array.
+	 */
+	static final RegisteredHandler[] NO_HANDLERS = new RegisteredHandler[0];
+
+	/**
+	 * The registry with no listeners.
+	 */
+	static final ListenerRegistry EMPTY = new ListenerRegistry(new Listener[0], new RegisteredHandler[0][]);
+
+	/**
+	 * The registered listeners, in registration order.
+	 */
+	private final Listener[] listeners;
+
+	/**
+	 * The handlers of each registered listener, aligned with the listeners.
+	 */
+	private final RegisteredHandler[][] handlers;
+
+	/**
+	 * Every registered handler, ordered by priority and then by registration
+	 * order.
+	 */
+	private final RegisteredHandler[] ordered;
+
+	/**
+	 * The handlers that apply to each concrete event class that has been
+	 * dispatched.
+	 */
+	private final ConcurrentHashMap<Class<?>, RegisteredHandler[]> cache;
+
+	/**
+	 * Create a listener registry.
+	 * 
+	 * @param listeners The registered listeners.
+	 * @param handlers  The handlers of each registered listener.
+	 */
+	private ListenerRegistry(@Nonnull Listener[] listeners, @Nonnull RegisteredHandler[][] handlers) {
+
+		ArrayList<RegisteredHandler> ordered = new ArrayList<RegisteredHandler>();
+
+		for (EventPriority priority : EventPriority.getPrioritiesInOrder())
+			for (RegisteredHandler[] index : handlers)
+				for (RegisteredHandler handler : index)
+					if (handler.getPriority() == priority)
+						ordered.add(handler);
+
+		this.listeners = listeners;
+		this.handlers = handlers;
+		this.ordered = ordered.toArray(NO_HANDLERS);
+		this.cache = new ConcurrentHashMap<Class<?>, RegisteredHandler[]>();
+
+	}
+
+	/**
+	 * Create a snapshot with an additional listener.
+	 * 
+	 * @param listener The listener to add.
+	 * @param handlers The listener's handlers.
+	 * 
+	 * @return The new snapshot.
+	 */
+	ListenerRegistry with(@Nonnull Listener listener, @Nonnull RegisteredHandler[] handlers) {
+
+		Listener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		RegisteredHandler[][] bound = Arrays.copyOf(this.handlers, this.handlers.length + 1);
+
+		listeners[listeners.length - 1] = listener;
+		bound[bound.length - 1] = handlers;
+
+		return new ListenerRegistry(listeners, bound);
+
+	}
+
+	/**
+	 * Create a snapshot without a listener.
+	 * 
+	 * @param listener The listener to remove.
+	 * 
+	 * @return The new snapshot, or this snapshot if the listener is not
+	 *         registered.
+	 */
+	ListenerRegistry without(@Nonnull Listener listener) {
+
+		int position = this.indexOf(listener);
+
+		if (position < 0)
+			return this;
+
+		Listener[] listeners = new Listener[this.listeners.length - 1];
+		RegisteredHandler[][] bound = new RegisteredHandler[this.handlers.length - 1][];
+
+		System.arraycopy(this.listeners, 0, listeners, 0, position);
+		System.arraycopy(this.listeners, position + 1, listeners, position, listeners.length - position);
+		System.arraycopy(this.handlers, 0, bound, 0, position);
+		System.arraycopy(this.handlers, position + 1, bound, position, bound.length - position);
+
+		return new ListenerRegistry(listeners, bound);
+
+	}
+
+	/**
+	 * Check if a listener is in the snapshot.
+	 * 
+	 * @param listener The listener to check for.
+	 * 
+	 * @return The truth value associated with the listener being in the snapshot.
+	 */
+	boolean contains(Listener listener) {
+
+		return this.indexOf(listener) >= 0;
+
+	}
+
+	/**
+	 * Get the listeners in the snapshot.
+	 * 
+	 * @return A copy of the listeners, in registration order.
+	 */
+	Listener[] getListeners() {
+
+		return this.listeners.clone();
+
+	}
+
+	/**
+	 * Get every handler in the snapshot.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The returned array is shared, it must not be
+	 * modified.
+	 * </p>
+	 * 
+	 * @return The handlers, in dispatch order.
+	 */
+	RegisteredHandler[] getAllHandlers() {
+
+		return this.ordered;
+
+	}
+
+	/**
+	 * Get the handlers of a listener in the snapshot.
+	 * 
+	 * @param listener The listener.
+	 * 
+	 * @return The listener's handlers, or no handlers if the listener is not in the
+	 *         snapshot.
+	 */
+	RegisteredHandler[] getHandlers(Listener listener) {
+
+		int position = this.indexOf(listener);
+		return position < 0 ? NO_HANDLERS : this.handlers[position];
+
+	}
+
+	/**
+	 * Get the event types the handlers in the snapshot accept.
+	 * 
+	 * @return The event types, in dispatch order.
+	 */
+	Set<Class<?>> getEventTypes() {
+
+		LinkedHashSet<Class<?>> types = new LinkedHashSet<Class<?>>();
+
+		for (RegisteredHandler handler : this.ordered)
+			types.add(handler.getEventType());
+
+		return types;
+
+	}
+
+	/**
+	 * Get the handlers that apply to an event class.
+	 * 
+	 * <p>
+	 * The handlers are resolved once per event class and then cached for the
+	 * lifetime of the snapshot.
+	 * </p>
+	 * 
+	 * @param eventClass The event class.
+	 * 
+	 * @return The applicable handlers, in dispatch order.
+	 */
+	RegisteredHandler[] getHandlers(@Nonnull Class<?> eventClass) {
+
+		RegisteredHandler[] resolved = this.cache.get(eventClass);
+
+		if (resolved == null) {
+
+			resolved = this.resolve(eventClass);
+			this.cache.putIfAbsent(eventClass, resolved);
+
+		}
+
+		return resolved;
+
+	}
+
+	/**
+	 * Resolve the handlers that apply to an event class.
+	 * 
+	 * @param eventClass The event class.
+	 * 
+	 * @return The applicable handlers, in dispatch order.
+	 */
+	private RegisteredHandler[] resolve(@Nonnull Class<?> eventClass) {
+
+		ArrayList<RegisteredHandler> resolved = new ArrayList<RegisteredHandler>();
+
+		for (RegisteredHandler handler : this.ordered)
+			if (handler.getEventType().isAssignableFrom(eventClass))
+				resolved.add(handler);
+
+		return resolved.isEmpty() ? NO_HANDLERS : resolved.toArray(NO_HANDLERS);
+
+	}
+
+	/**
+	 * Find the position of a listener in the snapshot.
+	 * 
+	 * @param listener The listener to find.
+	 * 
+	 * @return The position of the listener, or -1 if it is not in the snapshot.
+	 */
+	private int indexOf(Listener listener) {
+
+		for (int i = 0; i < this.listeners.length; i++)
+			if (this.listeners[i] == null ? listener == null : this.listeners[i].equals(listener))
+				return i;
+
+		return -1;
+
+	}
+
+}
@@ -0,0 +1,436 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nonnull;
+
+import lombok.Getter;
+import me.myles.discordbotapi.event.exception.InvalidEventHandlerException;
+import net.dv8tion.jda.api.events.GenericEvent;
+
+/**
+ * An {@link me.myles.discordbotapi.event.EventHandler EventHandler} method
+ * that has been bound to a registered
+ * {@link me.myles.discordbotapi.event.Listener Listener}.
+ * 
+ * <p>
+ * Handlers are created once when a listener is registered, so the reflective
+ * lookups do not need to be repeated every time an event is dispatched.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class RegisteredHandler {
+
+	/**
+	 * The listener that declared the handler.
+	 */
+	@Getter
+	private final Listener listener;
+
+	/**
+	 * The handler method.
+	 */
+	@Getter
+	private final Method method;
+
+	/**
+	 * The type of event the handler accepts.
+	 */
+	@Getter
+	private final Class<?> eventType;
+
+	/**
+	 * The priority of the handler.
+	 */
+	@Getter
+	private final EventPriority priority;
+
+	/**
+	 * The truth value associated with the handler returning a
+	 * {@link java.util.concurrent.CompletionStage CompletionStage}.
+	 */
+	private final boolean async;
+
+	/**
+	 * The invoker bound to the handler method, this will be null if the handler
+	 * is asynchronous.
+	 */
+	private final EventExecutor executor;
+
+	/**
+	 * The invoker bound to the asynchronous handler method, this will be null if
+	 * the handler is synchronous.
+	 */
+	private final AsyncEventExecutor asyncExecutor;
+
+	/**
+	 * The batch the handler's events are accumulated in, this will be null if the
+	 * handler is not batched.
+	 */
+	private final EventBatch batch;
+
+	/**
+	 * Create a registered handler.
+	 * 
+	 * @param listener      The listener that declared the handler.
+	 * @param method        The handler method.
+	 * @param batchExecutor The executor that delivers batches whose window has
+	 *                      elapsed.
+	 */
+	RegisteredHandler(@Nonnull Listener listener, @Nonnull Method method, @Nonnull Executor batchExecutor) {
+
+		if (method.getParameterCount() == 0)
+			throw new InvalidEventHandlerException("Error: No paramater was specified!");
+
+		if (method.getParameterCount() > 1)
+			throw new InvalidEventHandlerException("Error: Event handlers may only have one paramater!");
+
+		EventHandler annotation = method.getDeclaredAnnotation(EventHandler.class);
+		boolean batched = annotation.batch() > 0;
+
+		if (batched && annotation.batchWindow() <= 0)
+			throw new InvalidEventHandlerException("Error: The batch window must be positive!");
+
+		if (!batched && !GenericEvent.class.isAssignableFrom(method.getParameterTypes()[0]))
+			throw new InvalidEventHandlerException("Error: The paramater must be an event!");
+
+		method.setAccessible(true);
+
+		this.listener = listener;
+		this.method = method;
+		this.eventType = batched ? batchedEventType(method) : method.getParameterTypes()[0];
+		this.priority = annotation.priority();
+		this.async = !batched && CompletionStage.class.isAssignableFrom(method.getReturnType());
+		this.executor = this.async || batched ? null : bind(listener, method);
+		this.asyncExecutor = this.async ? bindAsync(listener, method) : null;
+		this.batch = batched ? new EventBatch(bindBatch(listener, method), batchExecutor, annotation.batch(),
+				annotation.batchWindow()) : null;
+
+	}
+
+	/**
+	 * Invoke the handler.
+	 * 
+	 * @param event The event to pass to the handler.
+	 * 
+	 * @return The stage that completes when an asynchronous handler has finished,
+	 *         or null if the handler has already finished.
+	 */
+	CompletionStage<?> invoke(@Nonnull GenericEvent event) {
+
+		if (this.batch != null) {
+
+			this.batch.add(event);
+			return null;
+
+		}
+
+		try {
+
+			if (this.async)
+				return this.asyncExecutor.execute(event);
+
+			this.executor.execute(event);
+			return null;
+
+		} catch (Error e) {
+
+			throw e;
+
+		} catch (Throwable e) {
+
+			throw new InvalidEventHandlerException(e);
+
+		}
+
+	}
+
+	/**
+	 * Deliver the handler's pending batch, if it is batched.
+	 */
+	void flushBatch() {
+
+		if (this.batch != null)
+			this.batch.flush();
+
+	}
+
+	/**
+	 * Get the event type a batched handler method accepts.
+	 * 
+	 * @param method The batched handler method.
+	 * 
+	 * @return The type of the events in the batch.
+	 */
+	private static Class<?> batchedEventType(@Nonnull Method method) {
+
+		if (!method.getParameterTypes()[0].isAssignableFrom(ArrayList.class))
+			throw new InvalidEventHandlerException("Error: The paramater of a batched event handler must be a List!");
+
+		Type parameter = method.getGenericParameterTypes()[0];
+		Type element = parameter instanceof ParameterizedType
+				? ((ParameterizedType) parameter).getActualTypeArguments()[0]
+				: null;
+
+		if (element instanceof WildcardType)
+			element = ((WildcardType) element).getUpperBounds()[0];
+
+		if (element instanceof ParameterizedType)
+			element = ((ParameterizedType) element).getRawType();
+
+		if (!(element instanceof Class) || !GenericEvent.class.isAssignableFrom((Class<?>) element))
+			throw new InvalidEventHandlerException("Error: The paramater of a batched event handler must be a List of events!");
+
+		return (Class<?>) element;
+
+	}
+
+	/**
+	 * Bind a handler method to a direct invoker.
+	 * 
+	 * <p>
+	 * When the handler is reachable from this class loader, an implementation of
+	 * {@link me.myles.discordbotapi.event.EventExecutor EventExecutor} is spun
+	 * with {@link java.lang.invoke.LambdaMetafactory LambdaMetafactory} so the JIT
+	 * can inline the call. Otherwise, the handler is invoked through a bound
+	 * {@link java.lang.invoke.MethodHandle MethodHandle}.
+	 * </p>
+	 * 
+	 * @param listener The listener that declared the handler.
+	 * @param method   The handler method.
+	 * 
+	 * @return The bound invoker.
+	 */
+	private static EventExecutor bind(@Nonnull Listener listener, @Nonnull Method method) {
+
+		MethodHandle handle = unreflect(method);
+		EventExecutor spun = spin(listener, method, handle, EventExecutor.class, void.class, GenericEvent.class);
+
+		if (spun != null)
+			return spun;
+
+		MethodHandle bound = adapt(listener, method, handle, void.class, GenericEvent.class);
+
+		return event -> {
+
+			bound.invokeExact(event);
+
+		};
+
+	}
+
+	/**
+	 * Bind an asynchronous handler method to a direct invoker.
+	 * 
+	 * @param listener The listener that declared the handler.
+	 * @param method   The handler method.
+	 * 
+	 * @return The bound invoker.
+	 * 
+	 * @see #bind(Listener, Method)
+	 */
+	private static AsyncEventExecutor bindAsync(@Nonnull Listener listener, @Nonnull Method method) {
+
+		MethodHandle handle = unreflect(method);
+		AsyncEventExecutor spun = spin(listener, method, handle, AsyncEventExecutor.class, method.getReturnType(),
+				GenericEvent.class);
+
+		if (spun != null)
+			return spun;
+
+		MethodHandle bound = adapt(listener, method, handle, CompletionStage.class, GenericEvent.class);
+
+		return event -> (CompletionStage<?>) bound.invokeExact(event);
+
+	}
+
+	/**
+	 * Bind a batched handler method to a direct invoker.
+	 * 
+	 * <p>
+	 * Anything the batched handler returns is ignored.
+	 * </p>
+	 * 
+	 * @param listener The listener that declared the handler.
+	 * @param method   The handler method.
+	 * 
+	 * @return The bound invoker.
+	 * 
+	 * @see #bind(Listener, Method)
+	 */
+	private static BatchEventExecutor bindBatch(@Nonnull Listener listener, @Nonnull Method method) {
+
+		MethodHandle handle = unreflect(method);
+		BatchEventExecutor spun = spin(listener, method, handle, BatchEventExecutor.class, void.class, List.class);
+
+		if (spun != null)
+			return spun;
+
+		MethodHandle bound = adapt(listener, method, handle, void.class, List.class);
+
+		return events -> {
+
+			bound.invokeExact(events);
+
+		};
+
+	}
+
+	/**
+	 * Get a method handle for a handler method.
+	 * 
+	 * @param method The handler method.
+	 * 
+	 * @return The method handle.
+	 */
+	private static MethodHandle unreflect(@Nonnull Method method) {
+
+		try {
+
+			return MethodHandles.lookup().unreflect(method);
+
+		} catch (IllegalAccessException e) {
+
+			throw new InvalidEventHandlerException(e);
+
+		}
+
+	}
+
+	/**
+	 * Spin an implementation of an executor interface that calls a handler
+	 * method directly.
+	 * 
+	 * @param <T>          The executor interface.
+	 * @param listener     The listener that declared the handler.
+	 * @param method       The handler method.
+	 * @param handle       The handler method's handle.
+	 * @param executorType The executor interface.
+	 * @param returnType   The return type the executor exposes the handler as.
+	 * @param argumentType The argument type of the executor's method.
+	 * 
+	 * @return The executor, or null if one could not be spun.
+	 */
+	private static <T> T spin(@Nonnull Listener listener, @Nonnull Method method, @Nonnull MethodHandle handle,
+			@Nonnull Class<T> executorType, @Nonnull Class<?> returnType, @Nonnull Class<?> argumentType) {
+
+		if (!isDirectlyAccessible(method))
+			return null;
+
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		Class<?> samReturn = returnType == void.class ? void.class : CompletionStage.class;
+
+		try {
+
+			MethodType factoryType = isStatic ? MethodType.methodType(executorType)
+					: MethodType.methodType(executorType, method.getDeclaringClass());
+
+			CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "execute", factoryType,
+					MethodType.methodType(samReturn, argumentType), handle,
+					MethodType.methodType(returnType, method.getParameterTypes()[0]));
+
+			return executorType.cast(isStatic ? site.getTarget().invoke() : site.getTarget().invoke(listener));
+
+		} catch (Throwable e) {
+
+			return null;
+
+		}
+
+	}
+
+	/**
+	 * Bind a handler method's handle to its listener, and adapt it to the
+	 * executor's method type.
+	 * 
+	 * @param listener     The listener that declared the handler.
+	 * @param method       The handler method.
+	 * @param handle       The handler method's handle.
+	 * @param returnType   The return type to adapt the handle to.
+	 * @param argumentType The argument type to adapt the handle to.
+	 * 
+	 * @return The adapted handle.
+	 */
+	private static MethodHandle adapt(@Nonnull Listener listener, @Nonnull Method method, @Nonnull MethodHandle handle,
+			@Nonnull Class<?> returnType, @Nonnull Class<?> argumentType) {
+
+		return (Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(listener))
+				.asType(MethodType.methodType(returnType, argumentType));
+
+	}
+
+	/**
+	 * Check if a generated class in this package could call a handler method
+	 * directly.
+	 * 
+	 * @param method The handler method.
+	 * 
+	 * @return The truth value associated with the method being directly
+	 *         accessible.
+	 */
+	private static boolean isDirectlyAccessible(@Nonnull Method method) {
+
+		return Modifier.isPublic(method.getModifiers()) && isPubliclyVisible(method.getDeclaringClass())
+				&& isPubliclyVisible(method.getParameterTypes()[0]);
+
+	}
+
+	/**
+	 * Check if a class, and every class enclosing it, is public and can be
+	 * resolved from this class loader.
+	 * 
+	 * @param clazz The class to check.
+	 * 
+	 * @return The truth value associated with the class being publicly visible.
+	 */
+	private static boolean isPubliclyVisible(@Nonnull Class<?> clazz) {
+
+		for (Class<?> index = clazz; index != null; index = index.getEnclosingClass())
+			if (!Modifier.isPublic(index.getModifiers()))
+				return false;
+
+		try {
+
+			return Class.forName(clazz.getName(), false, RegisteredHandler.class.getClassLoader()) == clazz;
+
+		} catch (ClassNotFoundException | LinkageError e) {
+
+			return false;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,362 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+
+/**
+ * Limits the number of executions of a
+ * {@link me.myles.discordbotapi.event.command.Command Command} that run at the
+ * same time.
+ * 
+ * <p>
+ * An execution holds a permit until it finishes, or until the
+ * {@link java.util.concurrent.CompletionStage CompletionStage} it returns
+ * completes. Executions that arrive while every permit is held wait in a
+ * bounded queue, and are rejected once the queue is full.
+ * </p>
+ * 
+ * <p>
+ * <strong>Note:</strong> The executor must run every task it accepts, and
+ * throw a {@link java.util.concurrent.RejectedExecutionException
+ * RejectedExecutionException} for a task it does not accept. A task that is
+ * silently discarded will never return its permit.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class Bulkhead {
+
+	/**
+	 * The bulkhead's logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(Bulkhead.class);
+
+	/**
+	 * The maximum number of executions that run at the same time.
+	 */
+	@Getter
+	private final int maxConcurrency;
+
+	/**
+	 * The maximum number of executions that wait for a permit.
+	 */
+	@Getter
+	private final int queueSize;
+
+	/**
+	 * The number of permits that are held.
+	 */
+	private final AtomicInteger running;
+
+	/**
+	 * The number of executions that are waiting for a permit.
+	 */
+	private final AtomicInteger queued;
+
+	/**
+	 * The executions that are waiting for a permit.
+	 */
+	private final ConcurrentLinkedQueue<Runnable> queue;
+
+	/**
+	 * The number of executions that were rejected.
+	 */
+	private final LongAdder rejected;
+
+	/**
+	 * The number of times the queue was asked to drain, only the thread that
+	 * raises this from zero drains the queue.
+	 */
+	private final AtomicInteger drainRequests;
+
+	/**
+	 * Create a new Bulkhead.
+	 * 
+	 * @param maxConcurrency The maximum number of executions that run at the same
+	 *                       time.
+	 * @param queueSize      The maximum number of executions that wait for a
+	 *                       permit.
+	 */
+	public Bulkhead(int maxConcurrency, int queueSize) {
+
+		if (maxConcurrency < 1)
+			throw new IllegalArgumentException("Error: The maximum concurrency must be at least 1!");
+
+		if (queueSize < 0)
+			throw new IllegalArgumentException("Error: The queue size can not be negative!");
+
+		this.maxConcurrency = maxConcurrency;
+		this.queueSize = queueSize;
+		this.running = new AtomicInteger();
+		this.queued = new AtomicInteger();
+		this.queue = new ConcurrentLinkedQueue<Runnable>();
+		this.rejected = new LongAdder();
+		this.drainRequests = new AtomicInteger();
+
+	}
+
+	/**
+	 * Submit an execution.
+	 * 
+	 * @param executor The executor to run the execution on.
+	 * @param task     The execution, this may return null if it finishes
+	 *                 synchronously.
+	 * 
+	 * @return The truth value associated with the execution being accepted.
+	 * 
+	 * @see #submit(Executor, Supplier, Runnable)
+	 */
+	public boolean submit(@Nonnull Executor executor, @Nonnull Supplier<? extends CompletionStage<?>> task) {
+
+		return this.submit(executor, task, null);
+
+	}
+
+	/**
+	 * Submit an execution.
+	 * 
+	 * <p>
+	 * An execution that is rejected by the executor after waiting for a permit
+	 * can not be reported by the return value, so the rejection callback is run
+	 * instead.
+	 * </p>
+	 * 
+	 * @param executor   The executor to run the execution on.
+	 * @param task       The execution, this may return null if it finishes
+	 *                   synchronously.
+	 * @param onRejected The callback to run if the execution is rejected by the
+	 *                   executor after waiting for a permit, or null.
+	 * 
+	 * @return The truth value associated with the execution being accepted.
+	 */
+	public boolean submit(@Nonnull Executor executor, @Nonnull Supplier<? extends CompletionStage<?>> task,
+			@Nullable Runnable onRejected) {
+
+		if (this.tryAcquire())
+			return this.start(executor, task);
+
+		if (this.queued.incrementAndGet() > this.queueSize) {
+
+			this.queued.decrementAndGet();
+			this.rejected.increment();
+			return false;
+
+		}
+
+		this.queue.offer(() -> {
+
+			if (!this.start(executor, task) && onRejected != null)
+				onRejected.run();
+
+		});
+
+		// Every permit may have been returned before the execution was queued.
+		this.drain();
+
+		return true;
+
+	}
+
+	/**
+	 * Get the number of executions that are running.
+	 * 
+	 * @return The number of running executions.
+	 */
+	public int getRunningCount() {
+
+		return this.running.get();
+
+	}
+
+	/**
+	 * Get the number of executions that are waiting for a permit.
+	 * 
+	 * @return The number of waiting executions.
+	 */
+	public int getQueuedCount() {
+
+		return this.queued.get();
+
+	}
+
+	/**
+	 * Get the number of executions that were rejected.
+	 * 
+	 * @return The number of rejected executions.
+	 */
+	public long getRejectedCount() {
+
+		return this.rejected.sum();
+
+	}
+
+	/**
+	 * Try to take a permit.
+	 * 
+	 * @return The truth value associated with a permit being taken.
+	 */
+	private boolean tryAcquire() {
+
+		while (true) {
+
+			int current = this.running.get();
+
+			if (current >= this.maxConcurrency)
+				return false;
+
+			if (this.running.compareAndSet(current, current + 1))
+				return true;
+
+		}
+
+	}
+
+	/**
+	 * Return a permit, and start a waiting execution with it.
+	 */
+	private void release() {
+
+		this.running.decrementAndGet();
+		this.drain();
+
+	}
+
+	/**
+	 * Start waiting executions while there are free permits.
+	 * 
+	 * <p>
+	 * An execution that is started may finish on this thread, for instance when
+	 * the executor runs rejected tasks on the caller, and return its permit from
+	 * within this method. Rather than recursing, the nested call records its
+	 * request and the outer call keeps draining.
+	 * </p>
+	 */
+	private void drain() {
+
+		if (this.drainRequests.getAndIncrement() != 0)
+			return;
+
+		int missed = 1;
+
+		do {
+
+			while (!this.queue.isEmpty() && this.tryAcquire()) {
+
+				Runnable next = this.queue.poll();
+
+				if (next == null) {
+
+					this.running.decrementAndGet();
+					continue;
+
+				}
+
+				this.queued.decrementAndGet();
+
+				try {
+
+					next.run();
+
+				} catch (Throwable e) {
+
+					LOGGER.error("A queued execution threw an uncaught exception", e);
+
+				}
+
+			}
+
+			missed = this.drainRequests.addAndGet(-missed);
+
+		} while (missed != 0);
+
+	}
+
+	/**
+	 * Start an execution that holds a permit.
+	 * 
+	 * <p>
+	 * If the executor rejects the execution, its permit is returned.
+	 * </p>
+	 * 
+	 * @param executor The executor to run the execution on.
+	 * @param task     The execution.
+	 * 
+	 * @return The truth value associated with the executor accepting the
+	 *         execution.
+	 */
+	private boolean start(Executor executor, Supplier<? extends CompletionStage<?>> task) {
+
+		try {
+
+			executor.execute(() -> this.run(task));
+			return true;
+
+		} catch (RejectedExecutionException e) {
+
+			this.rejected.increment();
+			this.release();
+			return false;
+
+		}
+
+	}
+
+	/**
+	 * Run an execution, returning its permit once it has finished.
+	 * 
+	 * @param task The execution.
+	 */
+	private void run(Supplier<? extends CompletionStage<?>> task) {
+
+		CompletionStage<?> stage;
+
+		try {
+
+			stage = task.get();
+
+		} catch (Throwable e) {
+
+			this.release();
+			throw e;
+
+		}
+
+		if (stage == null)
+			this.release();
+		else
+			stage.whenComplete((ignored, e) -> this.release());
+
+	}
+
+}
@@ -18,12 +18,21 @@
  */
 package me.myles.discordbotapi.event.command;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import lombok.Getter;
+import lombok.Setter;
 
-import me.myles.discordbotapi.utils.Utils;
+import me.myles.discordbotapi.event.command.exception.DuplicateCommandException;
 
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
@@ -31,6 +40,8 @@ import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
 
 /**
  * Extend this class in classes you wish to make commands.
@@ -44,6 +55,11 @@ import net.dv8tion.jda.api.entities.User;
  */
 public abstract class Command {
 
+	/**
+	 * The command logger.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(Command.class);
+
 	/**
 	 * The command's name.
 	 */
@@ -69,9 +85,44 @@ public abstract class Command {
 	private final String[] aliases;
 
 	/**
-	 * The command's sub commands.
+	 * The ids of the roles that bypass the command's permission, in ascending
+	 * order.
+	 */
+	private final long[] roleIds;
+
+	/**
+	 * The command's rate limit, or null if the command is not rate limited.
+	 */
+	@Getter
+	@Setter
+	private volatile RateLimit rateLimit;
+
+	/**
+	 * The command's bulkhead, or null if the command's concurrency is not
+	 * limited.
 	 */
-	private final ArrayList<Command> subCommands;
+	@Getter
+	@Setter
+	private volatile Bulkhead bulkhead;
+
+	/**
+	 * The command's response cache, or null if the command's responses are not
+	 * cached.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Only responses created by
+	 * {@link #createResponse(Guild, MessageChannel, User, String, CommandArguments)}
+	 * are cached.
+	 * </p>
+	 */
+	@Getter
+	@Setter
+	private volatile ResponseCache responseCache;
+
+	/**
+	 * The command's sub commands, indexed by their folded names and aliases.
+	 */
+	private final AtomicReference<CommandRegistry> subCommands;
 
 	/**
 	 * Create a new command.
@@ -84,7 +135,8 @@ public abstract class Command {
 		this.permission = Permission.MESSAGE_WRITE;
 		this.roles = null;
 		this.aliases = null;
-		this.subCommands = new ArrayList<Command>();
+		this.roleIds = toSortedIds(this.roles);
+		this.subCommands = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
 
 	}
 
@@ -100,7 +152,8 @@ public abstract class Command {
 		this.permission = permission;
 		this.roles = null;
 		this.aliases = null;
-		this.subCommands = new ArrayList<Command>();
+		this.roleIds = toSortedIds(this.roles);
+		this.subCommands = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
 
 	}
 
@@ -116,7 +169,8 @@ public abstract class Command {
 		this.permission = Permission.MESSAGE_WRITE;
 		this.roles = null;
 		this.aliases = aliases;
-		this.subCommands = new ArrayList<Command>();
+		this.roleIds = toSortedIds(this.roles);
+		this.subCommands = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
 
 	}
 
@@ -133,7 +187,8 @@ public abstract class Command {
 		this.permission = permission;
 		this.roles = null;
 		this.aliases = aliases;
-		this.subCommands = new ArrayList<Command>();
+		this.roleIds = toSortedIds(this.roles);
+		this.subCommands = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
 
 	}
 	
@@ -150,7 +205,8 @@ public abstract class Command {
 		this.permission = Permission.ADMINISTRATOR;
 		this.roles = roles;
 		this.aliases = aliases;
-		this.subCommands = new ArrayList<Command>();
+		this.roleIds = toSortedIds(this.roles);
+		this.subCommands = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
 
 	}
 	
@@ -168,7 +224,8 @@ public abstract class Command {
 		this.permission = permission;
 		this.roles = roles;
 		this.aliases = aliases;
-		this.subCommands = new ArrayList<Command>();
+		this.roleIds = toSortedIds(this.roles);
+		this.subCommands = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
 
 	}
 	
@@ -177,10 +234,19 @@ public abstract class Command {
 	 * Add a sub-command.
 	 * 
 	 * @param command The sub-command to add.
+	 * 
+	 * @throws DuplicateCommandException If the sub-command's name or one of its
+	 *                                   aliases is used by another sub-command.
 	 */
 	public void addSubCommand(Command command) {
 
-		this.subCommands.add(command);
+		CommandRegistry current;
+
+		do {
+
+			current = this.subCommands.get();
+
+		} while (!this.subCommands.compareAndSet(current, current.with(command)));
 
 	}
 
@@ -191,7 +257,13 @@ public abstract class Command {
 	 */
 	public void removeSubCommand(Command command) {
 
-		this.subCommands.remove(command);
+		CommandRegistry current;
+
+		do {
+
+			current = this.subCommands.get();
+
+		} while (!this.subCommands.compareAndSet(current, current.without(command)));
 
 	}
 
@@ -204,7 +276,7 @@ public abstract class Command {
 	 */
 	public boolean containsSubCommand(Command command) {
 
-		return this.subCommands.contains(command);
+		return this.subCommands.get().contains(command);
 
 	}
 
@@ -215,7 +287,7 @@ public abstract class Command {
 	 */
 	public Command[] getSubCommands() {
 
-		return this.subCommands.toArray(new Command[0]);
+		return this.subCommands.get().getCommands();
 
 	}
 
@@ -224,7 +296,7 @@ public abstract class Command {
 	 */
 	public void removeAllSubCommands() {
 
-		this.subCommands.clear();
+		this.subCommands.set(CommandRegistry.EMPTY);
 
 	}
 
@@ -244,37 +316,627 @@ public abstract class Command {
 	 */
 	public void executeCommand(Guild guild, MessageChannel channel, User executor, String label, String[] args) {
 
-		if(args.length > 0) {
-		
-			for (Command subCmd : subCommands) {
-	
-				if (subCmd.getName().equalsIgnoreCase(args[0]) || Utils.strArrContainsStr(subCmd.getAliases(), args[0])) {
-					
-					subCmd.executeCommand(
-							guild, 
-							channel, 
-							executor, 
-							args[0], 
-							Arrays.copyOfRange(args, 1, args.length));
-					return;
-	
-				}
-	
+		this.executeCommand(guild, channel, executor, label, CommandArguments.of(args, 0));
+
+	}
+
+	/**
+	 * Execute a command.
+	 * 
+	 * <p>
+	 * The sub-commands are resolved in a single pass over the arguments, each
+	 * level is a lookup in the parent command's sub-command index and advances
+	 * the view of the arguments without copying them.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 */
+	public void executeCommand(Guild guild, MessageChannel channel, User executor, String label, CommandArguments args) {
+
+		this.executeCommand(guild, channel, executor, null, label, args);
+
+	}
+
+	/**
+	 * Execute a command.
+	 * 
+	 * <p>
+	 * The sub-commands are resolved in a single pass over the arguments, each
+	 * level is a lookup in the parent command's sub-command index and advances
+	 * the view of the arguments without copying them.
+	 * </p>
+	 * 
+	 * <p>
+	 * The resolved command's rate limit is applied before its permission is
+	 * checked, so rejected executions never retrieve the member.
+	 * </p>
+	 * 
+	 * <p>
+	 * If the member is not known, it is retrieved asynchronously. In that case the
+	 * command will run on the thread that completes the request.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param member   The executor's member in the guild, or null if it is not
+	 *                 known.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 */
+	public void executeCommand(Guild guild, MessageChannel channel, User executor, Member member, String label,
+			CommandArguments args) {
+
+		this.executeCommand(guild, channel, executor, member, label, args, Runnable::run);
+
+	}
+
+	/**
+	 * Execute a command, running it on a dispatcher.
+	 * 
+	 * <p>
+	 * The command is resolved and authorized on the calling thread, and only the
+	 * command itself runs on the dispatcher. If the command has a
+	 * {@link me.myles.discordbotapi.event.command.Bulkhead Bulkhead}, it is
+	 * submitted through it.
+	 * </p>
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The dispatcher must throw a
+	 * {@link java.util.concurrent.RejectedExecutionException
+	 * RejectedExecutionException} for a command it does not run, the command is
+	 * then passed to
+	 * {@link #onCommandRejected(Guild, MessageChannel, User, String, CommandArguments)}.
+	 * </p>
+	 * 
+	 * @param guild      The guild the command was executed in.
+	 * @param channel    The channel the message was sent in.
+	 * @param executor   The user that executed the command.
+	 * @param member     The executor's member in the guild, or null if it is not
+	 *                   known.
+	 * @param label      The label that was used to execute the command.
+	 * @param args       The arguments that were passed in with the command.
+	 * @param dispatcher The executor to run the command on.
+	 * 
+	 * @see #executeCommand(Guild, MessageChannel, User, Member, String,
+	 *      CommandArguments)
+	 */
+	public void executeCommand(Guild guild, MessageChannel channel, User executor, Member member, String label,
+			CommandArguments args, Executor dispatcher) {
+
+		this.executeCommand(guild, channel, executor, member, label, args, dispatcher, null);
+
+	}
+
+	/**
+	 * Execute a command, running it on a dispatcher and caching the members that
+	 * are retrieved to authorize it.
+	 * 
+	 * <p>
+	 * If the member is not known, it is looked up in the member cache before it
+	 * is retrieved.
+	 * </p>
+	 * 
+	 * @param guild       The guild the command was executed in.
+	 * @param channel     The channel the message was sent in.
+	 * @param executor    The user that executed the command.
+	 * @param member      The executor's member in the guild, or null if it is
+	 *                    not known.
+	 * @param label       The label that was used to execute the command.
+	 * @param args        The arguments that were passed in with the command.
+	 * @param dispatcher  The executor to run the command on.
+	 * @param memberCache The cache of retrieved members, or null if retrieved
+	 *                    members are not cached.
+	 * 
+	 * @see #executeCommand(Guild, MessageChannel, User, Member, String,
+	 *      CommandArguments, Executor)
+	 */
+	public void executeCommand(Guild guild, MessageChannel channel, User executor, Member member, String label,
+			CommandArguments args, Executor dispatcher, MemberCache memberCache) {
+
+		Command target = this;
+		int consumed = 0;
+
+		while (consumed < args.size()) {
+
+			Command subCmd = target.subCommands.get().get(args.get(consumed));
+
+			if (subCmd == null)
+				break;
+
+			target = subCmd;
+			label = args.get(consumed++);
+
+		}
+
+		args = args.skip(consumed);
+
+		RateLimit rateLimit = target.rateLimit;
+
+		if (rateLimit != null) {
+
+			long wait = rateLimit.tryAcquire(rateLimit.getScope().keyOf(guild, channel, executor));
+
+			if (wait > 0) {
+
+				target.onRateLimited(guild, channel, executor, label, args, TimeUnit.NANOSECONDS.toMillis(wait));
+				return;
+
 			}
-			
+
 		}
 
-		Member member = guild.retrieveMember(executor).complete();
-		
+		target.authorize(guild, channel, executor, member, label, args, dispatcher, memberCache);
+
+	}
+
+	/**
+	 * Resolve the executor's member, and run the command or deny it.
+	 * 
+	 * <p>
+	 * The command is only denied if the member could not be retrieved because the
+	 * executor is no longer in the guild. Other failures, such as timeouts, are
+	 * logged.
+	 * </p>
+	 * 
+	 * @param guild       The guild the command was executed in.
+	 * @param channel     The channel the message was sent in.
+	 * @param executor    The user that executed the command.
+	 * @param member      The executor's member in the guild, or null if it is
+	 *                    not known.
+	 * @param label       The label that was used to execute the command.
+	 * @param args        The arguments that were passed in with the command.
+	 * @param dispatcher  The executor to run the command on.
+	 * @param memberCache The cache of retrieved members, or null if retrieved
+	 *                    members are not cached.
+	 */
+	private void authorize(Guild guild, MessageChannel channel, User executor, Member member, String label,
+			CommandArguments args, Executor dispatcher, MemberCache memberCache) {
+
 		// The quild will be null if the command was executed in a channel that is not a
 		// guild, for example a private messageing channel.
-		if (guild == null || member.hasPermission(this.getPermission()) || Utils.memberContainsAtLeastOneRole(member, this.getRoles()))
-			this.onCommand(guild, channel, executor, label, args);
+		if (guild == null) {
+
+			this.run(guild, channel, executor, label, args, dispatcher);
+			return;
+
+		}
+
+		if (member == null)
+			member = guild.getMember(executor);
+
+		if (member == null && memberCache != null)
+			member = memberCache.get(guild.getIdLong(), executor.getIdLong());
+
+		if (member != null) {
+
+			this.checkPermission(guild, channel, executor, member, label, args, dispatcher, memberCache);
+			return;
+
+		}
+
+		// The executor is not cached, so the member is retrieved without blocking the
+		// dispatching thread.
+		guild.retrieveMember(executor).queue(retrieved -> {
+
+			if (memberCache != null)
+				memberCache.put(retrieved);
+
+			this.checkPermission(guild, channel, executor, retrieved, label, args, dispatcher, memberCache);
+
+		}, e -> {
+
+			if (e instanceof ErrorResponseException
+					&& ((ErrorResponseException) e).getErrorResponse() == ErrorResponse.UNKNOWN_MEMBER)
+				this.onPermissionDenied(guild, channel, executor, label, args);
+			else
+				LOGGER.error("Could not retrieve the member {} to authorize the command {}", executor.getId(), this.name,
+						e);
+
+		});
+
+	}
+
+	/**
+	 * Check the executor's permission, and run the command or deny it.
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param member   The executor's member in the guild.
+	 * @param label    The label that was used to execute the command.
+	 * @param args       The arguments that were passed in with the command.
+	 * @param dispatcher  The executor to run the command on.
+	 * @param memberCache The cache of the members' role ids, or null if they are
+	 *                    not cached.
+	 */
+	private void checkPermission(Guild guild, MessageChannel channel, User executor, Member member, String label,
+			CommandArguments args, Executor dispatcher, MemberCache memberCache) {
+
+		if (this.hasPermission(member) || this.hasBypassRole(member, memberCache))
+			this.run(guild, channel, executor, label, args, dispatcher);
 		else
 			this.onPermissionDenied(guild, channel, executor, label, args);
 
 	}
 
+	/**
+	 * Run the command on a dispatcher, through the command's bulkhead if it has
+	 * one.
+	 * 
+	 * <p>
+	 * If the command has a cached response, it is sent instead, without using the
+	 * dispatcher.
+	 * </p>
+	 * 
+	 * @param guild      The guild the command was executed in.
+	 * @param channel    The channel the message was sent in.
+	 * @param executor   The user that executed the command.
+	 * @param label      The label that was used to execute the command.
+	 * @param args       The arguments that were passed in with the command.
+	 * @param dispatcher The executor to run the command on.
+	 */
+	private void run(Guild guild, MessageChannel channel, User executor, String label, CommandArguments args,
+			Executor dispatcher) {
+
+		ResponseCache responseCache = this.responseCache;
+
+		if (responseCache != null) {
+
+			String response = responseCache.get(this, guild != null ? guild.getIdLong() : channel.getIdLong(),
+					this.normalizeArguments(args));
+
+			if (response != null) {
+
+				channel.sendMessage(response).queue();
+				return;
+
+			}
+
+		}
+
+		Bulkhead bulkhead = this.bulkhead;
+
+		Runnable onRejected = () -> this.onCommandRejected(guild, channel, executor, label, args);
+
+		if (bulkhead == null) {
+
+			try {
+
+				dispatcher.execute(() -> this.invoke(guild, channel, executor, label, args));
+
+			} catch (RejectedExecutionException e) {
+
+				onRejected.run();
+
+			}
+
+		} else if (!bulkhead.submit(dispatcher, () -> this.invoke(guild, channel, executor, label, args),
+				onRejected)) {
+
+			onRejected.run();
+
+		}
+
+	}
+
+	/**
+	 * Invoke the command, logging its failure.
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 * 
+	 * @return A stage that completes when the command has finished.
+	 */
+	private CompletionStage<?> invoke(Guild guild, MessageChannel channel, User executor, String label,
+			CommandArguments args) {
+
+		CompletionStage<?> stage;
+
+		try {
+
+			ResponseCache responseCache = this.responseCache;
+
+			if (responseCache != null) {
+
+				String response = this.createResponse(guild, channel, executor, label, args);
+
+				if (response != null) {
+
+					responseCache.put(this, guild != null ? guild.getIdLong() : channel.getIdLong(),
+							this.normalizeArguments(args), response);
+					channel.sendMessage(response).queue();
+
+					return CompletableFuture.completedFuture(null);
+
+				}
+
+			}
+
+			stage = this.onCommandAsync(guild, channel, executor, label, args);
+
+		} catch (RuntimeException e) {
+
+			LOGGER.error("The command {} threw an uncaught exception", this.name, e);
+			return CompletableFuture.completedFuture(null);
+
+		}
+
+		if (stage == null)
+			return CompletableFuture.completedFuture(null);
+
+		stage.whenComplete((ignored, e) -> {
+
+			if (e != null)
+				LOGGER.error("The command {} failed", this.name, e);
+
+		});
+
+		return stage;
+
+	}
+
+	/**
+	 * Check if a member has the command's permission.
+	 * 
+	 * <p>
+	 * JDA resolves the member's effective permissions, which account for the
+	 * guild owner and administrators, as a raw value without building a set.
+	 * </p>
+	 * 
+	 * @param member The member to check.
+	 * 
+	 * @return The truth value associated with the member having the permission.
+	 */
+	private boolean hasPermission(Member member) {
+
+		return member.hasPermission(this.permission);
+
+	}
+
+	/**
+	 * Check if a member has one of the roles that bypass the command's permission.
+	 * 
+	 * <p>
+	 * The member's sorted role ids are taken from the member cache, so the
+	 * member's roles are only listed when they are not cached, and both sorted
+	 * arrays are walked once.
+	 * </p>
+	 * 
+	 * @param member      The member to check.
+	 * @param memberCache The cache of the members' role ids, or null if they are
+	 *                    not cached.
+	 * 
+	 * @return The truth value associated with the member having a bypass role.
+	 */
+	private boolean hasBypassRole(Member member, MemberCache memberCache) {
+
+		if (this.roleIds.length == 0)
+			return false;
+
+		long[] memberRoleIds = memberCache != null ? memberCache.getRoleIds(member)
+				: MemberCache.toSortedIds(member.getRoles());
+
+		int i = 0;
+		int j = 0;
+
+		while (i < this.roleIds.length && j < memberRoleIds.length) {
+
+			if (this.roleIds[i] == memberRoleIds[j])
+				return true;
+
+			if (this.roleIds[i] < memberRoleIds[j])
+				i++;
+			else
+				j++;
+
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Get the ids of roles in ascending order.
+	 * 
+	 * @param roles The roles, or null.
+	 * 
+	 * @return The sorted ids of the roles.
+	 */
+	private static long[] toSortedIds(Role[] roles) {
+
+		if (roles == null)
+			return new long[0];
+
+		long[] ids = new long[roles.length];
+
+		for (int i = 0; i < roles.length; i++)
+			ids[i] = roles[i].getIdLong();
+
+		Arrays.sort(ids);
+
+		return ids;
+
+	}
+
+	/**
+	 * Create the command's response, so that it can be cached.
+	 * 
+	 * <p>
+	 * This is only called if the command has a
+	 * {@link me.myles.discordbotapi.event.command.ResponseCache ResponseCache}
+	 * and the response is not cached. The response is sent to the channel, and
+	 * {@link #onCommandAsync(Guild, MessageChannel, User, String, CommandArguments)}
+	 * is not called.
+	 * </p>
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> A cached response is shared by every executor in the
+	 * guild, so it must not depend on the executor.
+	 * </p>
+	 * 
+	 * <p>
+	 * By default this returns null, which runs the command as normal.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 * 
+	 * @return The response, or null if the command should run as normal.
+	 */
+	public String createResponse(Guild guild, MessageChannel channel, User executor, String label,
+			CommandArguments args) {
+
+		return null;
+
+	}
+
+	/**
+	 * Normalize the arguments of an execution into the key of its cached response.
+	 * 
+	 * <p>
+	 * By default the arguments are joined by single spaces. Override this to
+	 * ignore arguments that do not change the response, such as their case.
+	 * </p>
+	 * 
+	 * @param args The arguments that were passed in with the command.
+	 * 
+	 * @return The normalized arguments.
+	 */
+	public String normalizeArguments(CommandArguments args) {
+
+		return args.toString();
+
+	}
+
+	/**
+	 * This method will be called when the command is executed.
+	 * 
+	 * <p>
+	 * Override this to run the command asynchronously. If the command has a
+	 * {@link me.myles.discordbotapi.event.command.Bulkhead Bulkhead}, the
+	 * execution holds its permit until the returned stage completes.
+	 * </p>
+	 * 
+	 * <p>
+	 * By default this calls
+	 * {@link #onCommand(Guild, MessageChannel, User, String, CommandArguments)}
+	 * and returns null.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 * 
+	 * @return A stage that completes when the command has finished, or null if it
+	 *         finished synchronously.
+	 */
+	public CompletionStage<?> onCommandAsync(Guild guild, MessageChannel channel, User executor, String label,
+			CommandArguments args) {
+
+		this.onCommand(guild, channel, executor, label, args);
+
+		return null;
+
+	}
+
+	/**
+	 * This method will be called when the command is executed.
+	 * 
+	 * <p>
+	 * By default this copies the arguments into an array and calls
+	 * {@link #onCommand(Guild, MessageChannel, User, String, String[])}. Override
+	 * it to work with the arguments without copying them.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 */
+	public void onCommand(Guild guild, MessageChannel channel, User executor, String label, CommandArguments args) {
+
+		this.onCommand(guild, channel, executor, label, args.toArray());
+
+	}
+
+	/**
+	 * This method will be called when the command is executed but the executor does
+	 * not have permission to use the command.
+	 * 
+	 * <p>
+	 * By default this copies the arguments into an array and calls
+	 * {@link #onPermissionDenied(Guild, MessageChannel, User, String, String[])}.
+	 * Override it to work with the arguments without copying them.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 */
+	public void onPermissionDenied(Guild guild, MessageChannel channel, User executor, String label,
+			CommandArguments args) {
+
+		this.onPermissionDenied(guild, channel, executor, label, args.toArray());
+
+	}
+
+	/**
+	 * This method will be called when the command is executed but its
+	 * {@link me.myles.discordbotapi.event.command.Bulkhead Bulkhead} is full, or
+	 * the dispatcher rejected it.
+	 * 
+	 * <p>
+	 * By default this does nothing.
+	 * </p>
+	 * 
+	 * @param guild    The guild the command was executed in.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * @param label    The label that was used to execute the command.
+	 * @param args     The arguments that were passed in with the command.
+	 */
+	public void onCommandRejected(Guild guild, MessageChannel channel, User executor, String label,
+			CommandArguments args) {
+
+	}
+
+	/**
+	 * This method will be called when the command is executed but the executor has
+	 * exceeded the command's rate limit.
+	 * 
+	 * <p>
+	 * By default this does nothing.
+	 * </p>
+	 * 
+	 * @param guild      The guild the command was executed in.
+	 * @param channel    The channel the message was sent in.
+	 * @param executor   The user that executed the command.
+	 * @param label      The label that was used to execute the command.
+	 * @param args       The arguments that were passed in with the command.
+	 * @param retryAfter The number of milliseconds until the command can be
+	 *                   executed again.
+	 */
+	public void onRateLimited(Guild guild, MessageChannel channel, User executor, String label, CommandArguments args,
+			long retryAfter) {
+
+	}
+
 	/**
 	 * This method will be called when the command is executed.
 	 * 
@@ -0,0 +1,214 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A read-only view of the arguments that were passed in with a command.
+ * 
+ * <p>
+ * The view is an offset into the tokens of the original message, so resolving
+ * sub-commands does not copy the remaining arguments at every level, and an
+ * argument is only turned into a string when it is read.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class CommandArguments implements Iterable<String> {
+
+	/**
+	 * The tokens of the original message.
+	 */
+	private final CommandTokens tokens;
+
+	/**
+	 * The position of the first argument in the tokens.
+	 */
+	private final int offset;
+
+	/**
+	 * Create a view of command arguments.
+	 * 
+	 * @param tokens The tokens of the original message.
+	 * @param offset The position of the first argument in the tokens.
+	 */
+	private CommandArguments(@Nonnull CommandTokens tokens, int offset) {
+
+		this.tokens = tokens;
+		this.offset = offset;
+
+	}
+
+	/**
+	 * Create a view of the tokens from a position onwards.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The tokens are not copied, so they must not be
+	 * modified while the view is in use.
+	 * </p>
+	 * 
+	 * @param tokens The tokens of the original message.
+	 * @param offset The position of the first argument in the tokens.
+	 * 
+	 * @return The view of the arguments.
+	 */
+	public static CommandArguments of(@Nonnull String[] tokens, int offset) {
+
+		return CommandArguments.of(CommandTokens.of(tokens), offset);
+
+	}
+
+	/**
+	 * Create a view of the tokens from a position onwards.
+	 * 
+	 * @param tokens The tokens of the original message.
+	 * @param offset The position of the first argument in the tokens.
+	 * 
+	 * @return The view of the arguments.
+	 */
+	public static CommandArguments of(@Nonnull CommandTokens tokens, int offset) {
+
+		if (offset < 0 || offset > tokens.size())
+			throw new IndexOutOfBoundsException("Error: The offset " + offset + " is out of bounds!");
+
+		return new CommandArguments(tokens, offset);
+
+	}
+
+	/**
+	 * Get the number of arguments.
+	 * 
+	 * @return The number of arguments.
+	 */
+	public int size() {
+
+		return this.tokens.size() - this.offset;
+
+	}
+
+	/**
+	 * Check if there are no arguments.
+	 * 
+	 * @return The truth value associated with there being no arguments.
+	 */
+	public boolean isEmpty() {
+
+		return this.size() == 0;
+
+	}
+
+	/**
+	 * Get an argument.
+	 * 
+	 * @param index The index of the argument.
+	 * 
+	 * @return The argument.
+	 */
+	public String get(int index) {
+
+		if (index < 0 || index >= this.size())
+			throw new IndexOutOfBoundsException("Error: The argument " + index + " is out of bounds!");
+
+		return this.tokens.get(this.offset + index);
+
+	}
+
+	/**
+	 * Get a view of the arguments after skipping some of them.
+	 * 
+	 * @param count The number of arguments to skip.
+	 * 
+	 * @return The view of the remaining arguments.
+	 */
+	public CommandArguments skip(int count) {
+
+		if (count < 0 || count > this.size())
+			throw new IndexOutOfBoundsException("Error: Can not skip " + count + " arguments!");
+
+		return count == 0 ? this : new CommandArguments(this.tokens, this.offset + count);
+
+	}
+
+	/**
+	 * Copy the arguments into an array.
+	 * 
+	 * @return An array of the arguments.
+	 */
+	public String[] toArray() {
+
+		String[] array = new String[this.size()];
+
+		for (int i = 0; i < array.length; i++)
+			array[i] = this.tokens.get(this.offset + i);
+
+		return array;
+
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+
+		return new Iterator<String>() {
+
+			private int index = offset;
+
+			@Override
+			public boolean hasNext() {
+
+				return this.index < tokens.size();
+
+			}
+
+			@Override
+			public String next() {
+
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+
+				return tokens.get(this.index++);
+
+			}
+
+		};
+
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = this.offset; i < this.tokens.size(); i++) {
+
+			if (i > this.offset)
+				builder.append(' ');
+
+			builder.append(this.tokens.get(i));
+
+		}
+
+		return builder.toString();
+
+	}
+
+}
@@ -18,37 +18,75 @@
  */
 package me.myles.discordbotapi.event.command;
 
-import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+import lombok.Setter;
+import me.myles.discordbotapi.event.command.exception.DuplicateCommandException;
 
 /**
  * The command manager for Discord {@link me.myles.discordbotapi.bot.Bot Bot}'s.
  * 
+ * <p>
+ * Commands can be registered and unregistered while commands are being
+ * dispatched. Each change publishes a new immutable snapshot of the registered
+ * commands.
+ * </p>
+ * 
  * @author Myles Deslippe
  */
 public class CommandManager {
 
 	/**
-	 * The registered commands.
+	 * The current snapshot of the registered commands.
+	 */
+	private final AtomicReference<CommandRegistry> registry;
+
+	/**
+	 * The cache of the members that were retrieved to authorize commands, or null
+	 * if retrieved members are not cached.
 	 */
-	private final ArrayList<Command> commands;
+	@Getter
+	@Setter
+	private volatile MemberCache memberCache;
 
 	/**
 	 * Create a Discord Bot command manager.
 	 */
 	public CommandManager() {
 
-		this.commands = new ArrayList<Command>();
+		this.registry = new AtomicReference<CommandRegistry>(CommandRegistry.EMPTY);
+		this.memberCache = new MemberCache(MemberCache.DEFAULT_CAPACITY, MemberCache.DEFAULT_TTL, TimeUnit.SECONDS);
 
 	}
 
 	/**
 	 * Register a command with the command manager.
 	 * 
+	 * <p>
+	 * <strong>Note:</strong> Registering a command that is already registered has
+	 * no effect.
+	 * </p>
+	 * 
 	 * @param command The command to register.
+	 * 
+	 * @throws DuplicateCommandException If the command's name or one of its
+	 *                                   aliases is used by another registered
+	 *                                   command.
 	 */
 	public void registerCommand(Command command) {
 
-		this.commands.add(command);
+		CommandRegistry current;
+
+		do {
+
+			current = this.registry.get();
+
+		} while (!this.registry.compareAndSet(current, current.with(command)));
 
 	}
 
@@ -59,7 +97,13 @@ public class CommandManager {
 	 */
 	public void unregisterCommand(Command command) {
 
-		this.commands.remove(command);
+		CommandRegistry current;
+
+		do {
+
+			current = this.registry.get();
+
+		} while (!this.registry.compareAndSet(current, current.without(command)));
 
 	}
 
@@ -73,7 +117,25 @@ public class CommandManager {
 	 */
 	public boolean containsCommand(Command command) {
 
-		return this.commands.contains(command);
+		return this.registry.get().contains(command);
+
+	}
+
+	/**
+	 * Get a registered command by its name or one of its aliases.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> this method is not case sensitive.
+	 * </p>
+	 * 
+	 * @param label The command's name or alias.
+	 * 
+	 * @return The command, or null if no registered command uses the label.
+	 */
+	@Nullable
+	public Command getCommand(@Nonnull String label) {
+
+		return this.registry.get().get(label);
 
 	}
 
@@ -84,7 +146,18 @@ public class CommandManager {
 	 */
 	public Command[] getAllCommands() {
 
-		return commands.toArray(new Command[0]);
+		return this.registry.get().getCommands();
+
+	}
+
+	/**
+	 * Get the number of registered commands.
+	 * 
+	 * @return The number of registered commands.
+	 */
+	public int getCommandCount() {
+
+		return this.registry.get().size();
 
 	}
 
@@ -93,7 +166,7 @@ public class CommandManager {
 	 */
 	public void unregisterAllCommands() {
 
-		this.commands.clear();
+		this.registry.set(CommandRegistry.EMPTY);
 
 	}
 
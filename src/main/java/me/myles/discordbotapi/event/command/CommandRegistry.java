@@ -0,0 +1,237 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import me.myles.discordbotapi.event.command.exception.DuplicateCommandException;
+
+/**
+ * An immutable snapshot of the commands registered with a
+ * {@link me.myles.discordbotapi.event.command.CommandManager CommandManager}.
+ * 
+ * <p>
+ * Along with the commands, the snapshot holds an index of every command name
+ * and alias, folded to lower case, so a command can be resolved from its label
+ * with a single lookup.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class CommandRegistry {
+
+	/**
+	 * The registry with no commands.
+	 */
+	static final CommandRegistry EMPTY = new CommandRegistry(new Command[0], new HashMap<String, Command>());
+
+	/**
+	 * The registered commands, in registration order.
+	 */
+	private final Command[] commands;
+
+	/**
+	 * The registered commands indexed by their folded names and aliases.
+	 */
+	private final HashMap<String, Command> index;
+
+	/**
+	 * Create a command registry.
+	 * 
+	 * @param commands The registered commands.
+	 * @param index    The registered commands indexed by their folded names and
+	 *                 aliases.
+	 */
+	private CommandRegistry(@Nonnull Command[] commands, @Nonnull HashMap<String, Command> index) {
+
+		this.commands = commands;
+		this.index = index;
+
+	}
+
+	/**
+	 * Create a snapshot with an additional command.
+	 * 
+	 * @param command The command to add.
+	 * 
+	 * @return The new snapshot, or this snapshot if the command is already
+	 *         registered.
+	 * 
+	 * @throws DuplicateCommandException If the command's name or one of its
+	 *                                   aliases is used by another command.
+	 */
+	CommandRegistry with(@Nonnull Command command) {
+
+		if (this.contains(command))
+			return this;
+
+		HashMap<String, Command> index = new HashMap<String, Command>(this.index);
+
+		for (String label : labels(command)) {
+
+			Command existing = index.put(fold(label), command);
+
+			if (existing != null && existing != command)
+				throw new DuplicateCommandException("Error: The label \"" + label + "\" of the command \""
+						+ command.getName() + "\" is already used by the command \"" + existing.getName() + "\"!");
+
+		}
+
+		Command[] commands = Arrays.copyOf(this.commands, this.commands.length + 1);
+		commands[commands.length - 1] = command;
+
+		return new CommandRegistry(commands, index);
+
+	}
+
+	/**
+	 * Create a snapshot without a command.
+	 * 
+	 * @param command The command to remove.
+	 * 
+	 * @return The new snapshot, or this snapshot if the command is not
+	 *         registered.
+	 */
+	CommandRegistry without(@Nonnull Command command) {
+
+		int position = this.indexOf(command);
+
+		if (position < 0)
+			return this;
+
+		Command removed = this.commands[position];
+		Command[] commands = new Command[this.commands.length - 1];
+
+		System.arraycopy(this.commands, 0, commands, 0, position);
+		System.arraycopy(this.commands, position + 1, commands, position, commands.length - position);
+
+		HashMap<String, Command> index = new HashMap<String, Command>(this.index);
+		index.values().removeIf(indexed -> indexed == removed);
+
+		return new CommandRegistry(commands, index);
+
+	}
+
+	/**
+	 * Check if a command is in the snapshot.
+	 * 
+	 * @param command The command to check for.
+	 * 
+	 * @return The truth value associated with the command being in the snapshot.
+	 */
+	boolean contains(Command command) {
+
+		return this.indexOf(command) >= 0;
+
+	}
+
+	/**
+	 * Get the commands in the snapshot.
+	 * 
+	 * @return A copy of the commands, in registration order.
+	 */
+	Command[] getCommands() {
+
+		return this.commands.clone();
+
+	}
+
+	/**
+	 * Get the number of commands in the snapshot.
+	 * 
+	 * @return The number of commands.
+	 */
+	int size() {
+
+		return this.commands.length;
+
+	}
+
+	/**
+	 * Resolve a command from one of its labels.
+	 * 
+	 * @param label The command's name or one of its aliases, in any case.
+	 * 
+	 * @return The command, or null if no command uses the label.
+	 */
+	@Nullable
+	Command get(@Nonnull String label) {
+
+		return this.index.get(fold(label));
+
+	}
+
+	/**
+	 * Get every label of a command.
+	 * 
+	 * @param command The command.
+	 * 
+	 * @return The command's name followed by its aliases.
+	 */
+	private static String[] labels(@Nonnull Command command) {
+
+		String[] aliases = command.getAliases();
+
+		if (aliases == null)
+			return new String[] { command.getName() };
+
+		String[] labels = new String[aliases.length + 1];
+		labels[0] = command.getName();
+		System.arraycopy(aliases, 0, labels, 1, aliases.length);
+
+		return labels;
+
+	}
+
+	/**
+	 * Fold a label so labels can be compared regardless of case.
+	 * 
+	 * @param label The label to fold.
+	 * 
+	 * @return The folded label.
+	 */
+	static String fold(@Nonnull String label) {
+
+		return label.toLowerCase(Locale.ROOT);
+
+	}
+
+	/**
+	 * Find the position of a command in the snapshot.
+	 * 
+	 * @param command The command to find.
+	 * 
+	 * @return The position of the command, or -1 if it is not in the snapshot.
+	 */
+	private int indexOf(Command command) {
+
+		for (int i = 0; i < this.commands.length; i++)
+			if (this.commands[i] == null ? command == null : this.commands[i].equals(command))
+				return i;
+
+		return -1;
+
+	}
+
+}
@@ -0,0 +1,388 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+
+/**
+ * Splits the content of a message into
+ * {@link me.myles.discordbotapi.event.command.CommandTokens CommandTokens}.
+ * 
+ * <p>
+ * The content is scanned once. By default it is split on every space, exactly
+ * like {@code content.split(" ")}. When quoting is enabled, tokens are
+ * separated by any amount of whitespace and a token can be wrapped in double
+ * quotes to include whitespace. When escaping is enabled, a backslash escapes
+ * the character after it.
+ * </p>
+ * 
+ * <p>
+ * The scan stores the bounds of each token in a single int array sized to the
+ * content, rather than allocating a string per token.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class CommandTokenizer {
+
+	/**
+	 * The number of ints used to store each token.
+	 */
+	static final int SLICE_WIDTH = 3;
+
+	/**
+	 * The flag marking a token that contains escape sequences.
+	 */
+	static final int ESCAPED = 1;
+
+	/**
+	 * The quote character.
+	 */
+	private static final char QUOTE = '"';
+
+	/**
+	 * The escape character.
+	 */
+	private static final char ESCAPE = '\\';
+
+	/**
+	 * The character tokens are split on when quoting is disabled.
+	 */
+	private static final char SPACE = ' ';
+
+	/**
+	 * The most tokens the scan buffer is sized for before it has to grow.
+	 */
+	private static final int INITIAL_TOKENS = 16;
+
+	/**
+	 * The truth value associated with double quotes grouping tokens.
+	 */
+	@Getter
+	private final boolean quoting;
+
+	/**
+	 * The truth value associated with backslashes escaping characters.
+	 */
+	@Getter
+	private final boolean escaping;
+
+	/**
+	 * Create a command tokenizer that splits on every space, with quoting and
+	 * escaping disabled.
+	 */
+	public CommandTokenizer() {
+
+		this(false, false);
+
+	}
+
+	/**
+	 * Create a command tokenizer.
+	 * 
+	 * @param quoting  The truth value associated with double quotes grouping
+	 *                 tokens, and tokens being separated by any amount of
+	 *                 whitespace rather than by single spaces.
+	 * @param escaping The truth value associated with backslashes escaping
+	 *                 characters.
+	 */
+	public CommandTokenizer(boolean quoting, boolean escaping) {
+
+		this.quoting = quoting;
+		this.escaping = escaping;
+
+	}
+
+	/**
+	 * Check if content starts with a command, that is, a prefix immediately
+	 * followed by a label.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> This does not allocate.
+	 * </p>
+	 * 
+	 * @param content The content of the message.
+	 * @param prefix  The command prefix.
+	 * 
+	 * @return The truth value associated with the content starting with a
+	 *         command.
+	 */
+	public static boolean isCommand(@Nonnull String content, @Nonnull String prefix) {
+
+		return content.length() > prefix.length() && content.startsWith(prefix)
+				&& !Character.isWhitespace(content.charAt(prefix.length()));
+
+	}
+
+	/**
+	 * Tokenize the content of a message, starting after the command prefix.
+	 * 
+	 * @param content The content of the message.
+	 * @param prefix  The command prefix.
+	 * 
+	 * @return The tokens, starting with the command label, or null if the content
+	 *         does not start with a command.
+	 */
+	@Nullable
+	public CommandTokens tokenize(@Nonnull String content, @Nonnull String prefix) {
+
+		if (!isCommand(content, prefix))
+			return null;
+
+		return this.tokenize(content, prefix.length());
+
+	}
+
+	/**
+	 * Tokenize content from a position onwards.
+	 * 
+	 * @param content The content to tokenize.
+	 * @param from    The position to start at.
+	 * 
+	 * @return The tokens.
+	 */
+	public CommandTokens tokenize(@Nonnull String content, int from) {
+
+		return this.quoting ? this.tokenizeWords(content, from) : this.tokenizeSpaces(content, from);
+
+	}
+
+	/**
+	 * Tokenize content on every space, keeping the empty tokens between
+	 * consecutive spaces but not those at the end, like
+	 * {@link java.lang.String#split(String) String.split}.
+	 * 
+	 * @param content The content to tokenize.
+	 * @param from    The position to start at.
+	 * 
+	 * @return The tokens.
+	 */
+	private CommandTokens tokenizeSpaces(@Nonnull String content, int from) {
+
+		int length = content.length();
+		int[] buffer = buffer(length - from);
+		int used = 0;
+		int kept = 0;
+		int position = from;
+
+		while (true) {
+
+			int flags = 0;
+			int start = position;
+
+			while (position < length && content.charAt(position) != SPACE) {
+
+				if (this.escaping && content.charAt(position) == ESCAPE && position + 1 < length) {
+
+					flags |= ESCAPED;
+					position++;
+
+				}
+
+				position++;
+
+			}
+
+			buffer = slice(buffer, used, start, position, flags);
+			used += SLICE_WIDTH;
+
+			if (position > start)
+				kept = used;
+
+			if (position >= length)
+				break;
+
+			position++;
+
+		}
+
+		return new CommandTokens(content, trim(buffer, kept));
+
+	}
+
+	/**
+	 * Tokenize content on runs of whitespace, grouping quoted tokens.
+	 * 
+	 * @param content The content to tokenize.
+	 * @param from    The position to start at.
+	 * 
+	 * @return The tokens.
+	 */
+	private CommandTokens tokenizeWords(@Nonnull String content, int from) {
+
+		int length = content.length();
+		int[] buffer = buffer(length - from);
+		int used = 0;
+		int position = from;
+
+		while (true) {
+
+			while (position < length && Character.isWhitespace(content.charAt(position)))
+				position++;
+
+			if (position >= length)
+				break;
+
+			int flags = 0;
+			int start;
+			int end;
+
+			if (content.charAt(position) == QUOTE) {
+
+				start = ++position;
+
+				while (position < length && content.charAt(position) != QUOTE) {
+
+					if (this.escaping && content.charAt(position) == ESCAPE && position + 1 < length) {
+
+						flags |= ESCAPED;
+						position++;
+
+					}
+
+					position++;
+
+				}
+
+				end = position;
+
+				// Skip the closing quote, an unterminated quote runs to the end.
+				if (position < length)
+					position++;
+
+			} else {
+
+				start = position;
+
+				while (position < length && !Character.isWhitespace(content.charAt(position))) {
+
+					if (this.escaping && content.charAt(position) == ESCAPE && position + 1 < length) {
+
+						flags |= ESCAPED;
+						position++;
+
+					}
+
+					position++;
+
+				}
+
+				end = position;
+
+			}
+
+			buffer = slice(buffer, used, start, end, flags);
+			used += SLICE_WIDTH;
+
+		}
+
+		return new CommandTokens(content, trim(buffer, used));
+
+	}
+
+	/**
+	 * Create a scan buffer for content.
+	 * 
+	 * <p>
+	 * Content of n characters has at most n + 1 tokens, so short content gets an
+	 * exact buffer and longer content starts small and grows.
+	 * </p>
+	 * 
+	 * @param remaining The number of characters to tokenize.
+	 * 
+	 * @return The scan buffer.
+	 */
+	private static int[] buffer(int remaining) {
+
+		return new int[(Math.min(Math.max(remaining, 0), INITIAL_TOKENS - 1) + 1) * SLICE_WIDTH];
+
+	}
+
+	/**
+	 * Trim a scan buffer to the ints that are in use.
+	 * 
+	 * @param buffer The scan buffer.
+	 * @param used   The number of ints of the buffer that are in use.
+	 * 
+	 * @return The buffer, or a copy of its used ints if it is not full.
+	 */
+	private static int[] trim(int[] buffer, int used) {
+
+		return used == buffer.length ? buffer : Arrays.copyOf(buffer, used);
+
+	}
+
+	/**
+	 * Store a token in the scan buffer, growing it if necessary.
+	 * 
+	 * @param buffer The scan buffer.
+	 * @param used   The number of ints of the buffer that are in use.
+	 * @param start  The start of the token.
+	 * @param end    The end of the token.
+	 * @param flags  The token's flags.
+	 * 
+	 * @return The scan buffer, which is a new buffer if it had to grow.
+	 */
+	private static int[] slice(int[] buffer, int used, int start, int end, int flags) {
+
+		if (used + SLICE_WIDTH > buffer.length)
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+		buffer[used] = start;
+		buffer[used + 1] = end;
+		buffer[used + 2] = flags;
+
+		return buffer;
+
+	}
+
+	/**
+	 * Remove the escape characters from a slice of content.
+	 * 
+	 * @param content The content.
+	 * @param start   The start of the slice.
+	 * @param end     The end of the slice.
+	 * 
+	 * @return The unescaped slice.
+	 */
+	static String unescape(@Nonnull String content, int start, int end) {
+
+		StringBuilder builder = new StringBuilder(end - start);
+
+		for (int i = start; i < end; i++) {
+
+			char character = content.charAt(i);
+
+			if (character == ESCAPE && i + 1 < end)
+				character = content.charAt(++i);
+
+			builder.append(character);
+
+		}
+
+		return builder.toString();
+
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The tokens of a command message.
+ * 
+ * <p>
+ * Tokens are stored as slices of the original message, and are only turned
+ * into strings when they are first read.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class CommandTokens {
+
+	/**
+	 * The message the tokens were sliced from, this will be null if the tokens
+	 * were created from strings.
+	 */
+	private final String source;
+
+	/**
+	 * The start, end and flags of each token, in triples.
+	 */
+	private final int[] slices;
+
+	/**
+	 * The tokens that have been read.
+	 */
+	private final String[] values;
+
+	/**
+	 * Create command tokens from slices of a message.
+	 * 
+	 * @param source The message the tokens were sliced from.
+	 * @param slices The start, end and flags of each token, in triples.
+	 */
+	CommandTokens(@Nonnull String source, @Nonnull int[] slices) {
+
+		this.source = source;
+		this.slices = slices;
+		this.values = new String[slices.length / CommandTokenizer.SLICE_WIDTH];
+
+	}
+
+	/**
+	 * Create command tokens from strings.
+	 * 
+	 * @param values The tokens.
+	 */
+	private CommandTokens(@Nonnull String[] values) {
+
+		this.source = null;
+		this.slices = null;
+		this.values = values;
+
+	}
+
+	/**
+	 * Create command tokens from strings.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> The array is not copied, so it must not be modified
+	 * while the tokens are in use.
+	 * </p>
+	 * 
+	 * @param values The tokens.
+	 * 
+	 * @return The command tokens.
+	 */
+	public static CommandTokens of(@Nonnull String[] values) {
+
+		return new CommandTokens(values);
+
+	}
+
+	/**
+	 * Get the number of tokens.
+	 * 
+	 * @return The number of tokens.
+	 */
+	public int size() {
+
+		return this.values.length;
+
+	}
+
+	/**
+	 * Get a token.
+	 * 
+	 * @param index The index of the token.
+	 * 
+	 * @return The token.
+	 */
+	public String get(int index) {
+
+		String value = this.values[index];
+
+		if (value == null) {
+
+			int slice = index * CommandTokenizer.SLICE_WIDTH;
+			int start = this.slices[slice];
+			int end = this.slices[slice + 1];
+
+			if ((this.slices[slice + 2] & CommandTokenizer.ESCAPED) != 0)
+				value = CommandTokenizer.unescape(this.source, start, end);
+			else
+				value = this.source.substring(start, end);
+
+			// Racing readers will compute the same value, so the write does not need
+			// to be guarded.
+			this.values[index] = value;
+
+		}
+
+		return value;
+
+	}
+
+}
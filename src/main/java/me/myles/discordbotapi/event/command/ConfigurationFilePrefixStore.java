@@ -0,0 +1,160 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.simpleyaml.configuration.ConfigurationSection;
+import org.simpleyaml.configuration.file.YamlFile;
+
+import lombok.Getter;
+import me.myles.discordbotapi.data.file.ConfigurationFile;
+
+/**
+ * A {@link me.myles.discordbotapi.event.command.PrefixStore PrefixStore} that
+ * keeps the prefixes in a
+ * {@link me.myles.discordbotapi.data.file.ConfigurationFile ConfigurationFile}.
+ * 
+ * <p>
+ * The prefixes are kept in a section, keyed by guild id:
+ * </p>
+ * 
+ * <pre>
+ * prefixes:
+ *   '123456789012345678': '!'
+ *   '876543210987654321':
+ *   - '?'
+ *   - '$'
+ * </pre>
+ * 
+ * <p>
+ * Changes are saved through the file's write-behind saving, so storing a
+ * prefix does not block on the disk.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class ConfigurationFilePrefixStore implements PrefixStore {
+
+	/**
+	 * The file the prefixes are kept in.
+	 */
+	@Getter
+	private final ConfigurationFile file;
+
+	/**
+	 * The path of the section the prefixes are kept in.
+	 */
+	@Getter
+	private final String path;
+
+	/**
+	 * Create a new ConfigurationFilePrefixStore that keeps the prefixes in the
+	 * "prefixes" section.
+	 * 
+	 * @param file The file to keep the prefixes in.
+	 */
+	public ConfigurationFilePrefixStore(@Nonnull ConfigurationFile file) {
+
+		this(file, "prefixes");
+
+	}
+
+	/**
+	 * Create a new ConfigurationFilePrefixStore.
+	 * 
+	 * @param file The file to keep the prefixes in.
+	 * @param path The path of the section to keep the prefixes in.
+	 */
+	public ConfigurationFilePrefixStore(@Nonnull ConfigurationFile file, @Nonnull String path) {
+
+		this.file = file;
+		this.path = path;
+
+	}
+
+	@Override
+	public void load(@Nonnull PrefixConsumer consumer) throws IOException {
+
+		synchronized (this.file) {
+
+			ConfigurationSection section = this.file.getConfiguration().getConfigurationSection(this.path);
+
+			if (section == null)
+				return;
+
+			for (String key : section.getKeys(false)) {
+
+				long guildId;
+
+				try {
+
+					guildId = Long.parseUnsignedLong(key);
+
+				} catch (NumberFormatException e) {
+
+					throw new IOException("Error: " + key + " is not a guild id!", e);
+
+				}
+
+				if (section.isList(key)) {
+
+					List<String> prefixes = section.getStringList(key);
+
+					consumer.accept(guildId, prefixes.toArray(new String[prefixes.size()]));
+
+				} else if (section.isString(key)) {
+
+					consumer.accept(guildId, new String[] { section.getString(key) });
+
+				}
+
+			}
+
+		}
+
+	}
+
+	@Override
+	public void store(long guildId, @Nullable String[] prefixes) {
+
+		String key = this.path + "." + Long.toUnsignedString(guildId);
+		YamlFile configuration = this.file.getConfiguration();
+
+		synchronized (this.file) {
+
+			if (prefixes == null)
+				configuration.set(key, null);
+			else if (prefixes.length == 1)
+				configuration.set(key, prefixes[0]);
+			else
+				configuration.set(key, Arrays.asList(prefixes));
+
+		}
+
+		this.file.save();
+
+	}
+
+}
@@ -0,0 +1,304 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+
+/**
+ * A bounded cache of the members that were retrieved to authorize commands, and
+ * of the sorted role ids of the members that were checked for a bypass role.
+ * 
+ * <p>
+ * Entries expire after a fixed time so that role and permission changes are
+ * eventually seen, and the least recently used entry is evicted once the cache
+ * is full. The bot also invalidates a member's entry when it receives an event
+ * that changes their roles, which requires the
+ * {@link net.dv8tion.jda.api.requests.GatewayIntent#GUILD_MEMBERS GUILD_MEMBERS}
+ * intent.
+ * </p>
+ * 
+ * <p>
+ * Each {@link me.myles.discordbotapi.event.command.CommandManager
+ * CommandManager} has its own cache, which can be replaced or turned off with
+ * {@link me.myles.discordbotapi.event.command.CommandManager#setMemberCache(MemberCache)
+ * setMemberCache}.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class MemberCache {
+
+	/**
+	 * The default maximum number of members in the cache.
+	 */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/**
+	 * The default number of seconds a member stays in the cache.
+	 */
+	public static final long DEFAULT_TTL = 60;
+
+	/**
+	 * The maximum number of members in the cache.
+	 */
+	@Getter
+	private final int capacity;
+
+	/**
+	 * The number of nanoseconds a member stays in the cache.
+	 */
+	private final long ttl;
+
+	/**
+	 * The cached members, in least recently used order.
+	 */
+	private final LinkedHashMap<Key, CachedMember> entries;
+
+	/**
+	 * Create a new MemberCache.
+	 * 
+	 * @param capacity The maximum number of members in the cache.
+	 * @param ttl      The time a member stays in the cache.
+	 * @param unit     The unit of the time.
+	 */
+	public MemberCache(int capacity, long ttl, @Nonnull TimeUnit unit) {
+
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: The capacity must be at least 1!");
+
+		this.capacity = capacity;
+		this.ttl = unit.toNanos(ttl);
+		this.entries = new LinkedHashMap<Key, CachedMember>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2785319436452206742L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedMember> eldest) {
+
+				return this.size() > MemberCache.this.capacity;
+
+			}
+
+		};
+
+	}
+
+	/**
+	 * Get a cached member.
+	 * 
+	 * @param guildId The id of the member's guild.
+	 * @param userId  The id of the member's user.
+	 * 
+	 * @return The member, or null if it is not cached or has expired.
+	 */
+	@Nullable
+	synchronized Member get(long guildId, long userId) {
+
+		Key key = new Key(guildId, userId);
+		CachedMember entry = this.entries.get(key);
+
+		if (entry == null)
+			return null;
+
+		if (System.nanoTime() - entry.created >= this.ttl) {
+
+			this.entries.remove(key);
+			return null;
+
+		}
+
+		return entry.member;
+
+	}
+
+	/**
+	 * Get the ids of a member's roles in ascending order, caching them so that
+	 * the member's roles are not listed again until the entry expires.
+	 * 
+	 * @param member The member.
+	 * 
+	 * @return The sorted ids of the member's roles.
+	 */
+	@Nonnull
+	synchronized long[] getRoleIds(@Nonnull Member member) {
+
+		Key key = new Key(member.getGuild().getIdLong(), member.getIdLong());
+		CachedMember entry = this.entries.get(key);
+
+		if (entry != null && System.nanoTime() - entry.created >= this.ttl)
+			entry = null;
+
+		if (entry != null && entry.roleIds != null)
+			return entry.roleIds;
+
+		long[] roleIds = toSortedIds(member.getRoles());
+
+		if (entry == null)
+			this.entries.put(key, new CachedMember(null, roleIds, System.nanoTime()));
+		else
+			entry.roleIds = roleIds;
+
+		return roleIds;
+
+	}
+
+	/**
+	 * Remove a member from the cache.
+	 * 
+	 * @param guildId The id of the member's guild.
+	 * @param userId  The id of the member's user.
+	 */
+	public synchronized void invalidate(long guildId, long userId) {
+
+		this.entries.remove(new Key(guildId, userId));
+
+	}
+
+	/**
+	 * Get the ids of roles in ascending order.
+	 * 
+	 * @param roles The roles.
+	 * 
+	 * @return The sorted ids of the roles.
+	 */
+	@Nonnull
+	static long[] toSortedIds(@Nonnull List<Role> roles) {
+
+		long[] ids = new long[roles.size()];
+
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = roles.get(i).getIdLong();
+
+		Arrays.sort(ids);
+
+		return ids;
+
+	}
+
+	/**
+	 * Cache a member.
+	 * 
+	 * @param member The member.
+	 */
+	synchronized void put(@Nonnull Member member) {
+
+		this.entries.put(new Key(member.getGuild().getIdLong(), member.getIdLong()),
+				new CachedMember(member, null, System.nanoTime()));
+
+	}
+
+	/**
+	 * The key of a cached member.
+	 */
+	private static final class Key {
+
+		/**
+		 * The id of the member's guild.
+		 */
+		private final long guildId;
+
+		/**
+		 * The id of the member's user.
+		 */
+		private final long userId;
+
+		/**
+		 * Create a key.
+		 * 
+		 * @param guildId The id of the member's guild.
+		 * @param userId  The id of the member's user.
+		 */
+		private Key(long guildId, long userId) {
+
+			this.guildId = guildId;
+			this.userId = userId;
+
+		}
+
+		@Override
+		public boolean equals(Object object) {
+
+			if (!(object instanceof Key))
+				return false;
+
+			Key key = (Key) object;
+
+			return this.guildId == key.guildId && this.userId == key.userId;
+
+		}
+
+		@Override
+		public int hashCode() {
+
+			return Long.hashCode(this.guildId * 31 + this.userId);
+
+		}
+
+	}
+
+	/**
+	 * A cached member.
+	 */
+	private static final class CachedMember {
+
+		/**
+		 * The member, or null if only its role ids are cached.
+		 */
+		private final Member member;
+
+		/**
+		 * The sorted ids of the member's roles, or null if they have not been
+		 * cached.
+		 */
+		private long[] roleIds;
+
+		/**
+		 * The time the member was cached, in nanoseconds.
+		 */
+		private final long created;
+
+		/**
+		 * Create a cached member.
+		 * 
+		 * @param member  The member, or null if only its role ids are cached.
+		 * @param roleIds The sorted ids of the member's roles, or null.
+		 * @param created The time the member was cached, in nanoseconds.
+		 */
+		private CachedMember(Member member, long[] roleIds, long created) {
+
+			this.member = member;
+			this.roleIds = roleIds;
+			this.created = created;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+import lombok.Setter;
+import me.myles.discordbotapi.utils.ConcurrentLongMap;
+
+/**
+ * A per-guild command prefix management utility.
+ * 
+ * <p>
+ * Guilds without their own prefixes use the Bot's prefix.
+ * </p>
+ * 
+ * <p>
+ * Prefixes are matched without locking. Changes are made while holding the
+ * manager's lock, so they reach the store in the same order as they are made
+ * in memory, and loading replaces every guild's prefixes at once.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class PrefixManager {
+
+	/**
+	 * The prefixes of each guild, replaced as a whole when they are loaded.
+	 */
+	private volatile ConcurrentLongMap<PrefixTrie> prefixes;
+
+	/**
+	 * The store that persists the prefixes, or null if they are only held in
+	 * memory.
+	 */
+	@Getter
+	@Setter
+	private volatile PrefixStore store;
+
+	/**
+	 * Create a new PrefixManager that only holds the prefixes in memory.
+	 */
+	public PrefixManager() {
+
+		this(null);
+
+	}
+
+	/**
+	 * Create a new PrefixManager.
+	 * 
+	 * @param store The store that persists the prefixes, or null if they are only
+	 *              held in memory.
+	 */
+	public PrefixManager(@Nullable PrefixStore store) {
+
+		this.prefixes = new ConcurrentLongMap<PrefixTrie>();
+		this.store = store;
+
+	}
+
+	/**
+	 * Replace the prefixes in memory with the prefixes in the store.
+	 * 
+	 * @throws IOException If the prefixes could not be loaded.
+	 */
+	public synchronized void load() throws IOException {
+
+		PrefixStore store = this.store;
+
+		if (store == null)
+			throw new IllegalStateException("Error: The prefix manager does not have a store!");
+
+		ConcurrentLongMap<PrefixTrie> loaded = new ConcurrentLongMap<PrefixTrie>();
+
+		store.load((guildId, prefixes) -> loaded.put(guildId, new PrefixTrie(validate(prefixes))));
+
+		this.prefixes = loaded;
+
+	}
+
+	/**
+	 * Set a guild's prefix.
+	 * 
+	 * @param guildId The guild's id.
+	 * @param prefix  The prefix.
+	 */
+	public void setPrefix(long guildId, @Nonnull String prefix) {
+
+		this.setPrefixes(guildId, prefix);
+
+	}
+
+	/**
+	 * Set a guild's prefixes.
+	 * 
+	 * @param guildId  The guild's id.
+	 * @param prefixes The prefixes.
+	 */
+	public synchronized void setPrefixes(long guildId, @Nonnull String... prefixes) {
+
+		PrefixTrie trie = new PrefixTrie(validate(prefixes));
+
+		this.prefixes.put(guildId, trie);
+
+		PrefixStore store = this.store;
+
+		if (store != null)
+			store.store(guildId, trie.getPrefixes());
+
+	}
+
+	/**
+	 * Remove a guild's prefixes, so that it uses the Bot's prefix.
+	 * 
+	 * @param guildId The guild's id.
+	 */
+	public synchronized void removePrefixes(long guildId) {
+
+		if (this.prefixes.remove(guildId) == null)
+			return;
+
+		PrefixStore store = this.store;
+
+		if (store != null)
+			store.store(guildId, null);
+
+	}
+
+	/**
+	 * Get a guild's prefixes.
+	 * 
+	 * @param guildId The guild's id.
+	 * 
+	 * @return The guild's prefixes, or null if the guild uses the Bot's prefix.
+	 */
+	@Nullable
+	public String[] getPrefixes(long guildId) {
+
+		PrefixTrie trie = this.prefixes.get(guildId);
+
+		return trie == null ? null : trie.getPrefixes();
+
+	}
+
+	/**
+	 * Check if a guild has its own prefixes.
+	 * 
+	 * @param guildId The guild's id.
+	 * 
+	 * @return The truth value associated with the guild having its own prefixes.
+	 */
+	public boolean hasPrefixes(long guildId) {
+
+		return this.prefixes.containsKey(guildId);
+
+	}
+
+	/**
+	 * Find where the command label starts in a message sent in a guild.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> This does not allocate.
+	 * </p>
+	 * 
+	 * @param guildId  The guild's id.
+	 * @param content  The content of the message.
+	 * @param fallback The prefix to use if the guild does not have its own
+	 *                 prefixes.
+	 * 
+	 * @return The position of the command label, or -1 if the message is not a
+	 *         command.
+	 */
+	public int match(long guildId, @Nonnull String content, @Nonnull String fallback) {
+
+		PrefixTrie trie = this.prefixes.get(guildId);
+
+		if (trie != null)
+			return trie.match(content);
+
+		return CommandTokenizer.isCommand(content, fallback) ? fallback.length() : -1;
+
+	}
+
+	/**
+	 * Validate prefixes.
+	 * 
+	 * @param prefixes The prefixes.
+	 * 
+	 * @return The prefixes.
+	 */
+	private static String[] validate(String[] prefixes) {
+
+		if (prefixes == null || prefixes.length == 0)
+			throw new IllegalArgumentException("Error: At least one prefix is required!");
+
+		for (String prefix : prefixes)
+			if (prefix == null || prefix.isEmpty())
+				throw new IllegalArgumentException("Error: A prefix can not be empty!");
+
+		return prefixes;
+
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A store that persists the command prefixes of guilds for a
+ * {@link me.myles.discordbotapi.event.command.PrefixManager PrefixManager}.
+ * 
+ * @author Myles Deslippe
+ */
+public interface PrefixStore {
+
+	/**
+	 * Load every guild's prefixes.
+	 * 
+	 * @param consumer The consumer to pass each guild id and its prefixes to.
+	 * 
+	 * @throws IOException If the prefixes could not be loaded.
+	 */
+	void load(@Nonnull PrefixConsumer consumer) throws IOException;
+
+	/**
+	 * Store a guild's prefixes.
+	 * 
+	 * @param guildId  The guild's id.
+	 * @param prefixes The guild's prefixes, or null if the guild's prefixes were
+	 *                 removed.
+	 */
+	void store(long guildId, @Nullable String[] prefixes);
+
+	/**
+	 * Receives the prefixes of each guild as they are loaded.
+	 */
+	@FunctionalInterface
+	interface PrefixConsumer {
+
+		/**
+		 * Accept a guild's prefixes.
+		 * 
+		 * @param guildId  The guild's id.
+		 * @param prefixes The guild's prefixes.
+		 */
+		void accept(long guildId, @Nonnull String[] prefixes);
+
+	}
+
+}
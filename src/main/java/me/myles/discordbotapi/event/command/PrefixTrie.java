@@ -0,0 +1,196 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An immutable trie of command prefixes.
+ * 
+ * <p>
+ * Matching walks the content once, and no further than the longest prefix, so
+ * the cost does not depend on the number of prefixes.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+final class PrefixTrie {
+
+	/**
+	 * The prefixes in the trie.
+	 */
+	private final String[] prefixes;
+
+	/**
+	 * The root node of the trie.
+	 */
+	private final Node root;
+
+	/**
+	 * Create a prefix trie.
+	 * 
+	 * @param prefixes The prefixes.
+	 */
+	PrefixTrie(@Nonnull String[] prefixes) {
+
+		this.prefixes = prefixes.clone();
+		this.root = new Node();
+
+		for (String prefix : this.prefixes) {
+
+			Node node = this.root;
+
+			for (int i = 0; i < prefix.length(); i++)
+				node = node.getOrAddChild(prefix.charAt(i));
+
+			node.terminal = true;
+
+		}
+
+	}
+
+	/**
+	 * Get the prefixes in the trie.
+	 * 
+	 * @return A copy of the prefixes.
+	 */
+	String[] getPrefixes() {
+
+		return this.prefixes.clone();
+
+	}
+
+	/**
+	 * Find the longest prefix that content starts with, and that is immediately
+	 * followed by a command label.
+	 * 
+	 * @param content The content to match.
+	 * 
+	 * @return The length of the prefix, or -1 if no prefix matched.
+	 */
+	int match(@Nonnull String content) {
+
+		int length = content.length();
+		int match = this.root.terminal && startsLabel(content, 0) ? 0 : -1;
+		Node node = this.root;
+
+		for (int i = 0; i < length; i++) {
+
+			node = node.getChild(content.charAt(i));
+
+			if (node == null)
+				break;
+
+			if (node.terminal && startsLabel(content, i + 1))
+				match = i + 1;
+
+		}
+
+		return match;
+
+	}
+
+	/**
+	 * Check if a command label starts at a position.
+	 * 
+	 * @param content  The content.
+	 * @param position The position.
+	 * 
+	 * @return The truth value associated with a label starting at the position.
+	 */
+	private static boolean startsLabel(String content, int position) {
+
+		return position < content.length() && !Character.isWhitespace(content.charAt(position));
+
+	}
+
+	/**
+	 * A node of a {@link PrefixTrie}.
+	 */
+	private static final class Node {
+
+		/**
+		 * The characters leading to the children, in ascending order.
+		 */
+		private char[] keys = new char[0];
+
+		/**
+		 * The children, aligned with the keys.
+		 */
+		private Node[] children = new Node[0];
+
+		/**
+		 * The truth value associated with a prefix ending at the node.
+		 */
+		private boolean terminal;
+
+		/**
+		 * Get a child.
+		 * 
+		 * @param key The character leading to the child.
+		 * 
+		 * @return The child, or null.
+		 */
+		private Node getChild(char key) {
+
+			int index = Arrays.binarySearch(this.keys, key);
+
+			return index < 0 ? null : this.children[index];
+
+		}
+
+		/**
+		 * Get a child, adding it if it does not exist.
+		 * 
+		 * @param key The character leading to the child.
+		 * 
+		 * @return The child.
+		 */
+		private Node getOrAddChild(char key) {
+
+			int index = Arrays.binarySearch(this.keys, key);
+
+			if (index >= 0)
+				return this.children[index];
+
+			index = -index - 1;
+
+			char[] keys = new char[this.keys.length + 1];
+			Node[] children = new Node[this.children.length + 1];
+
+			System.arraycopy(this.keys, 0, keys, 0, index);
+			System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+			System.arraycopy(this.children, 0, children, 0, index);
+			System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+
+			keys[index] = key;
+			children[index] = new Node();
+
+			this.keys = keys;
+			this.children = children;
+
+			return children[index];
+
+		}
+
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import lombok.Getter;
+import me.myles.discordbotapi.utils.ConcurrentLongMap;
+
+/**
+ * A token bucket rate limit for a
+ * {@link me.myles.discordbotapi.event.command.Command Command}.
+ * 
+ * <p>
+ * Each bucket allows a burst of executions up to its capacity, and refills at
+ * a steady rate over the period. A bucket is a single
+ * {@link java.util.concurrent.atomic.AtomicLong AtomicLong} holding the time
+ * at which it will be full again, so acquiring a token is one compare and set.
+ * </p>
+ * 
+ * <p>
+ * Buckets that have refilled are idle, and are evicted periodically. An
+ * execution that races with the eviction of its bucket may be given a fresh
+ * bucket.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class RateLimit {
+
+	/**
+	 * The minimum number of nanoseconds between evictions of idle buckets.
+	 */
+	private static final long MIN_SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+	/**
+	 * The scope of the rate limit.
+	 */
+	@Getter
+	private final RateLimitScope scope;
+
+	/**
+	 * The maximum number of executions in a burst.
+	 */
+	@Getter
+	private final int capacity;
+
+	/**
+	 * The number of nanoseconds it takes to refill one token.
+	 */
+	private final long interval;
+
+	/**
+	 * The number of nanoseconds a bucket can be ahead of the current time before
+	 * it is empty.
+	 */
+	private final long tolerance;
+
+	/**
+	 * The number of nanoseconds between evictions of idle buckets.
+	 */
+	private final long sweepInterval;
+
+	/**
+	 * The buckets, keyed by the id of their scope.
+	 */
+	private final ConcurrentLongMap<AtomicLong> buckets;
+
+	/**
+	 * The time of the next eviction of idle buckets.
+	 */
+	private final AtomicLong nextSweep;
+
+	/**
+	 * The number of executions that were allowed.
+	 */
+	private final LongAdder accepted;
+
+	/**
+	 * The number of executions that were rejected.
+	 */
+	private final LongAdder rejected;
+
+	/**
+	 * Create a new RateLimit.
+	 * 
+	 * @param scope    The scope of the rate limit.
+	 * @param capacity The maximum number of executions in a burst.
+	 * @param period   The time it takes to refill an empty bucket.
+	 * @param unit     The unit of the period.
+	 */
+	public RateLimit(@Nonnull RateLimitScope scope, int capacity, long period, @Nonnull TimeUnit unit) {
+
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: The capacity must be at least 1!");
+
+		if (period < 1)
+			throw new IllegalArgumentException("Error: The period must be at least 1!");
+
+		this.scope = scope;
+		this.capacity = capacity;
+		this.interval = Math.max(1, unit.toNanos(period) / capacity);
+		this.tolerance = this.interval * (capacity - 1);
+		this.sweepInterval = Math.max(MIN_SWEEP_INTERVAL, unit.toNanos(period));
+		this.buckets = new ConcurrentLongMap<AtomicLong>();
+		this.nextSweep = new AtomicLong(System.nanoTime() + this.sweepInterval);
+		this.accepted = new LongAdder();
+		this.rejected = new LongAdder();
+
+	}
+
+	/**
+	 * Create a rate limit that allows one execution per duration.
+	 * 
+	 * @param scope    The scope of the cooldown.
+	 * @param duration The duration of the cooldown.
+	 * @param unit     The unit of the duration.
+	 * 
+	 * @return The rate limit.
+	 */
+	public static RateLimit cooldown(@Nonnull RateLimitScope scope, long duration, @Nonnull TimeUnit unit) {
+
+		return new RateLimit(scope, 1, duration, unit);
+
+	}
+
+	/**
+	 * Try to take a token from a bucket.
+	 * 
+	 * @param key The id of the bucket's scope.
+	 * 
+	 * @return Zero if a token was taken, otherwise the number of nanoseconds until
+	 *         a token will be available.
+	 */
+	public long tryAcquire(long key) {
+
+		long now = System.nanoTime();
+
+		this.sweepIfDue(now);
+
+		AtomicLong bucket = this.buckets.get(key);
+
+		if (bucket == null) {
+
+			AtomicLong created = new AtomicLong(now);
+
+			bucket = this.buckets.putIfAbsent(key, created);
+
+			if (bucket == null)
+				bucket = created;
+
+		}
+
+		while (true) {
+
+			long full = bucket.get();
+			long start = full - now > 0 ? full : now;
+			long wait = start - now - this.tolerance;
+
+			if (wait > 0) {
+
+				this.rejected.increment();
+				return wait;
+
+			}
+
+			if (bucket.compareAndSet(full, start + this.interval)) {
+
+				this.accepted.increment();
+				return 0;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Get the number of executions that were allowed.
+	 * 
+	 * @return The number of allowed executions.
+	 */
+	public long getAcceptedCount() {
+
+		return this.accepted.sum();
+
+	}
+
+	/**
+	 * Get the number of executions that were rejected.
+	 * 
+	 * @return The number of rejected executions.
+	 */
+	public long getRejectedCount() {
+
+		return this.rejected.sum();
+
+	}
+
+	/**
+	 * Get the number of buckets that are being tracked.
+	 * 
+	 * @return The number of buckets.
+	 */
+	public int getBucketCount() {
+
+		return this.buckets.size();
+
+	}
+
+	/**
+	 * Evict the idle buckets if enough time has passed since the last eviction.
+	 * 
+	 * <p>
+	 * Only the thread that claims the eviction does the work, every other thread
+	 * continues without waiting.
+	 * </p>
+	 * 
+	 * @param now The current time.
+	 */
+	private void sweepIfDue(long now) {
+
+		long next = this.nextSweep.get();
+
+		if (now - next < 0 || !this.nextSweep.compareAndSet(next, now + this.sweepInterval))
+			return;
+
+		this.buckets.forEach((key, bucket) -> {
+
+			if (bucket.get() - now <= 0)
+				this.buckets.remove(key);
+
+		});
+
+	}
+
+}
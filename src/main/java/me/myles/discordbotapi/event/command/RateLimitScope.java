@@ -0,0 +1,79 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * The scopes a {@link me.myles.discordbotapi.event.command.RateLimit
+ * RateLimit} can be applied to.
+ * 
+ * @author Myles Deslippe
+ */
+public enum RateLimitScope {
+
+	/**
+	 * Each user has their own limit.
+	 */
+	USER,
+
+	/**
+	 * Each channel has its own limit, shared by every user in the channel.
+	 */
+	CHANNEL,
+
+	/**
+	 * Each guild has its own limit, shared by every user in the guild.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Commands that are not executed in a guild are limited
+	 * per channel.
+	 * </p>
+	 */
+	GUILD;
+
+	/**
+	 * Get the id of the bucket an execution belongs to.
+	 * 
+	 * @param guild    The guild the command was executed in, or null.
+	 * @param channel  The channel the message was sent in.
+	 * @param executor The user that executed the command.
+	 * 
+	 * @return The id of the bucket.
+	 */
+	long keyOf(Guild guild, MessageChannel channel, User executor) {
+
+		switch (this) {
+
+			case USER:
+				return executor.getIdLong();
+
+			case CHANNEL:
+				return channel.getIdLong();
+
+			default:
+				return guild != null ? guild.getIdLong() : channel.getIdLong();
+
+		}
+
+	}
+
+}
@@ -0,0 +1,306 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A cache of command responses, keyed by the
+ * {@link me.myles.discordbotapi.event.command.Command Command}, the guild it was
+ * executed in and its normalized arguments.
+ * 
+ * <p>
+ * A cache can be shared between commands, their responses are kept apart.
+ * </p>
+ * 
+ * <p>
+ * Responses expire after a fixed time, and the least recently used response is
+ * evicted once the cache is full.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public final class ResponseCache {
+
+	/**
+	 * The maximum number of responses in the cache.
+	 */
+	@Getter
+	private final int capacity;
+
+	/**
+	 * The number of nanoseconds a response stays in the cache.
+	 */
+	private final long ttl;
+
+	/**
+	 * The cached responses, in least recently used order.
+	 */
+	private final LinkedHashMap<Key, CachedResponse> responses;
+
+	/**
+	 * The number of lookups that found a response.
+	 */
+	private final LongAdder hits;
+
+	/**
+	 * The number of lookups that did not find a response.
+	 */
+	private final LongAdder misses;
+
+	/**
+	 * Create a new ResponseCache.
+	 * 
+	 * @param capacity The maximum number of responses in the cache.
+	 * @param ttl      The time a response stays in the cache.
+	 * @param unit     The unit of the time.
+	 */
+	public ResponseCache(int capacity, long ttl, @Nonnull TimeUnit unit) {
+
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error: The capacity must be at least 1!");
+
+		this.capacity = capacity;
+		this.ttl = unit.toNanos(ttl);
+		this.responses = new LinkedHashMap<Key, CachedResponse>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -3052785624195438611L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedResponse> eldest) {
+
+				return this.size() > ResponseCache.this.capacity;
+
+			}
+
+		};
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+
+	}
+
+	/**
+	 * Get a cached response.
+	 * 
+	 * @param command   The command that created the response.
+	 * @param scope     The id of the guild the command was executed in, or of the
+	 *                  channel if it was not executed in a guild.
+	 * @param arguments The normalized arguments.
+	 * 
+	 * @return The response, or null if it is not cached or has expired.
+	 */
+	@Nullable
+	public String get(@Nonnull Command command, long scope, @Nonnull String arguments) {
+
+		Key key = new Key(command, scope, arguments);
+		CachedResponse response;
+
+		synchronized (this.responses) {
+
+			response = this.responses.get(key);
+
+			if (response != null && System.nanoTime() - response.created >= this.ttl) {
+
+				this.responses.remove(key);
+				response = null;
+
+			}
+
+		}
+
+		if (response == null) {
+
+			this.misses.increment();
+			return null;
+
+		}
+
+		this.hits.increment();
+		return response.content;
+
+	}
+
+	/**
+	 * Cache a response.
+	 * 
+	 * @param command   The command that created the response.
+	 * @param scope     The id of the guild the command was executed in, or of the
+	 *                  channel if it was not executed in a guild.
+	 * @param arguments The normalized arguments.
+	 * @param content   The response.
+	 */
+	public void put(@Nonnull Command command, long scope, @Nonnull String arguments, @Nonnull String content) {
+
+		CachedResponse response = new CachedResponse(content, System.nanoTime());
+
+		synchronized (this.responses) {
+
+			this.responses.put(new Key(command, scope, arguments), response);
+
+		}
+
+	}
+
+	/**
+	 * Remove every cached response.
+	 */
+	public void invalidateAll() {
+
+		synchronized (this.responses) {
+
+			this.responses.clear();
+
+		}
+
+	}
+
+	/**
+	 * Get the number of cached responses, including expired responses that have
+	 * not been evicted yet.
+	 * 
+	 * @return The number of cached responses.
+	 */
+	public int size() {
+
+		synchronized (this.responses) {
+
+			return this.responses.size();
+
+		}
+
+	}
+
+	/**
+	 * Get the number of lookups that found a response.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+
+		return this.hits.sum();
+
+	}
+
+	/**
+	 * Get the number of lookups that did not find a response.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+
+		return this.misses.sum();
+
+	}
+
+	/**
+	 * The key of a cached response.
+	 */
+	private static final class Key {
+
+		/**
+		 * The command, compared by identity.
+		 */
+		private final Command command;
+
+		/**
+		 * The id of the guild or channel.
+		 */
+		private final long scope;
+
+		/**
+		 * The normalized arguments.
+		 */
+		private final String arguments;
+
+		/**
+		 * Create a key.
+		 * 
+		 * @param command   The command.
+		 * @param scope     The id of the guild or channel.
+		 * @param arguments The normalized arguments.
+		 */
+		private Key(Command command, long scope, String arguments) {
+
+			this.command = command;
+			this.scope = scope;
+			this.arguments = arguments;
+
+		}
+
+		@Override
+		public boolean equals(Object object) {
+
+			if (!(object instanceof Key))
+				return false;
+
+			Key key = (Key) object;
+
+			return this.command == key.command && this.scope == key.scope && this.arguments.equals(key.arguments);
+
+		}
+
+		@Override
+		public int hashCode() {
+
+			return (System.identityHashCode(this.command) * 31 + Long.hashCode(this.scope)) * 31
+					+ this.arguments.hashCode();
+
+		}
+
+	}
+
+	/**
+	 * A cached response.
+	 */
+	private static final class CachedResponse {
+
+		/**
+		 * The response.
+		 */
+		private final String content;
+
+		/**
+		 * The time the response was cached, in nanoseconds.
+		 */
+		private final long created;
+
+		/**
+		 * Create a cached response.
+		 * 
+		 * @param content The response.
+		 * @param created The time the response was cached, in nanoseconds.
+		 */
+		private CachedResponse(String content, long created) {
+
+			this.content = content;
+			this.created = created;
+
+		}
+
+	}
+
+}
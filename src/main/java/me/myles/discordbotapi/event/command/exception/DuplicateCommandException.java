@@ -0,0 +1,51 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command.exception;
+
+import javax.annotation.Nullable;
+
+/**
+ * The DuplicateCommandException.
+ * 
+ * <p>
+ * This exception will be thrown when a command is registered with a name or
+ * alias that is already used by another registered command.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ */
+public class DuplicateCommandException extends RuntimeException {
+
+	/**
+	 * The DuplicateCommandException serial version UID.
+	 */
+	private static final long serialVersionUID = -2890318420765184187L;
+
+	/**
+	 * The Duplicate Command Exception constructor.
+	 * 
+	 * @param reason The reason for throwing the exception.
+	 */
+	public DuplicateCommandException(@Nullable final String reason) {
+
+		super(reason);
+
+	}
+
+}
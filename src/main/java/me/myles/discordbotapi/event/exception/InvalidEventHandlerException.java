@@ -59,4 +59,15 @@ public class InvalidEventHandlerException extends RuntimeException {
 
 	}
 
+	/**
+	 * The Invalid Event Handler Exception constructor.
+	 * 
+	 * @param cause The reason for the exception.
+	 */
+	public InvalidEventHandlerException(Throwable cause) {
+
+		super(cause);
+
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,625 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.utils;
+
+import java.util.concurrent.locks.StampedLock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A concurrent map with primitive {@code long} keys, such as snowflake ids.
+ * 
+ * <p>
+ * The map is split into segments that each hold an open addressed table and a
+ * {@link java.util.concurrent.locks.StampedLock StampedLock}. Reads are
+ * optimistic, so they do not block or write to shared memory unless they race
+ * with a write to the same segment.
+ * </p>
+ * 
+ * <p>
+ * <strong>Note:</strong> Null values are not supported.
+ * </p>
+ * 
+ * @author Myles Deslippe
+ * 
+ * @param <V> The type of the values.
+ */
+public final class ConcurrentLongMap<V> {
+
+	/**
+	 * The number of segments, this must be a power of two.
+	 */
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * The segments of the map.
+	 */
+	private final Segment<V>[] segments;
+
+	/**
+	 * Create a concurrent long map.
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongMap() {
+
+		this.segments = new Segment[SEGMENTS];
+
+		for (int i = 0; i < SEGMENTS; i++)
+			this.segments[i] = new Segment<V>();
+
+	}
+
+	/**
+	 * Get a value.
+	 * 
+	 * @param key The key bound to the value.
+	 * 
+	 * @return The value, or null if the key is not bound.
+	 */
+	@Nullable
+	public V get(long key) {
+
+		long hash = hash(key);
+
+		return this.segmentOf(hash).get(key, (int) hash);
+
+	}
+
+	/**
+	 * Check if a key is bound.
+	 * 
+	 * @param key The key to check for.
+	 * 
+	 * @return The truth value associated with the key being bound.
+	 */
+	public boolean containsKey(long key) {
+
+		return this.get(key) != null;
+
+	}
+
+	/**
+	 * Bind a value to a key.
+	 * 
+	 * @param key   The key.
+	 * @param value The value.
+	 * 
+	 * @return The value that was previously bound to the key, or null.
+	 */
+	@Nullable
+	public V put(long key, @Nonnull V value) {
+
+		if (value == null)
+			throw new NullPointerException("Error: The value can not be null!");
+
+		long hash = hash(key);
+
+		return this.segmentOf(hash).put(key, (int) hash, value, false);
+
+	}
+
+	/**
+	 * Bind a value to a key if the key is not already bound.
+	 * 
+	 * @param key   The key.
+	 * @param value The value.
+	 * 
+	 * @return The value that is already bound to the key, or null if the value
+	 *         was bound.
+	 */
+	@Nullable
+	public V putIfAbsent(long key, @Nonnull V value) {
+
+		if (value == null)
+			throw new NullPointerException("Error: The value can not be null!");
+
+		long hash = hash(key);
+
+		return this.segmentOf(hash).put(key, (int) hash, value, true);
+
+	}
+
+	/**
+	 * Unbind a key.
+	 * 
+	 * @param key The key.
+	 * 
+	 * @return The value that was bound to the key, or null.
+	 */
+	@Nullable
+	public V remove(long key) {
+
+		long hash = hash(key);
+
+		return this.segmentOf(hash).remove(key, (int) hash);
+
+	}
+
+	/**
+	 * Get the number of bound keys.
+	 * 
+	 * @return The number of bound keys.
+	 */
+	public int size() {
+
+		int size = 0;
+
+		for (Segment<V> segment : this.segments)
+			size += segment.size();
+
+		return size;
+
+	}
+
+	/**
+	 * Check if no keys are bound.
+	 * 
+	 * @return The truth value associated with no keys being bound.
+	 */
+	public boolean isEmpty() {
+
+		return this.size() == 0;
+
+	}
+
+	/**
+	 * Unbind every key.
+	 */
+	public void clear() {
+
+		for (Segment<V> segment : this.segments)
+			segment.clear();
+
+	}
+
+	/**
+	 * Pass every entry to a consumer.
+	 * 
+	 * <p>
+	 * <strong>Note:</strong> Each segment is copied before it is passed to the
+	 * consumer, so the consumer may modify the map.
+	 * </p>
+	 * 
+	 * @param consumer The consumer.
+	 */
+	public void forEach(@Nonnull EntryConsumer<? super V> consumer) {
+
+		for (Segment<V> segment : this.segments)
+			segment.forEach(consumer);
+
+	}
+
+	/**
+	 * Get the segment a hash belongs to.
+	 * 
+	 * @param hash The hash of a key.
+	 * 
+	 * @return The segment.
+	 */
+	private Segment<V> segmentOf(long hash) {
+
+		return this.segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+
+	}
+
+	/**
+	 * Spread the bits of a key.
+	 * 
+	 * <p>
+	 * Snowflakes share their high bits with every id created around the same time,
+	 * so the key is mixed before it is used to pick a segment or a slot.
+	 * </p>
+	 * 
+	 * @param key The key.
+	 * 
+	 * @return The hash of the key.
+	 */
+	private static long hash(long key) {
+
+		key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+		key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+
+		return key ^ (key >>> 33);
+
+	}
+
+	/**
+	 * Receives the entries of a {@link ConcurrentLongMap}.
+	 * 
+	 * @author Myles Deslippe
+	 * 
+	 * @param <V> The type of the values.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+
+		/**
+		 * Receive an entry.
+		 * 
+		 * @param key   The key.
+		 * @param value The value bound to the key.
+		 */
+		void accept(long key, V value);
+
+	}
+
+	/**
+	 * An open addressed table.
+	 * 
+	 * <p>
+	 * The keys and values are held together so that a reader always sees arrays of
+	 * the same length.
+	 * </p>
+	 */
+	private static final class Table {
+
+		/**
+		 * The keys of the table.
+		 */
+		private final long[] keys;
+
+		/**
+		 * The values of the table, a null value marks an empty slot.
+		 */
+		private final Object[] values;
+
+		/**
+		 * Create a table.
+		 * 
+		 * @param capacity The number of slots, this must be a power of two.
+		 */
+		private Table(int capacity) {
+
+			this.keys = new long[capacity];
+			this.values = new Object[capacity];
+
+		}
+
+	}
+
+	/**
+	 * A segment of a {@link ConcurrentLongMap}.
+	 * 
+	 * @param <V> The type of the values.
+	 */
+	private static final class Segment<V> {
+
+		/**
+		 * The initial number of slots.
+		 */
+		private static final int INITIAL_CAPACITY = 8;
+
+		/**
+		 * The lock guarding the segment.
+		 */
+		private final StampedLock lock = new StampedLock();
+
+		/**
+		 * The table of the segment.
+		 */
+		private Table table = new Table(INITIAL_CAPACITY);
+
+		/**
+		 * The number of bound keys.
+		 */
+		private int size;
+
+		/**
+		 * Get a value.
+		 * 
+		 * @param key  The key.
+		 * @param hash The hash of the key.
+		 * 
+		 * @return The value, or null.
+		 */
+		private V get(long key, int hash) {
+
+			long stamp = this.lock.tryOptimisticRead();
+
+			V value = find(this.table, key, hash);
+
+			if (this.lock.validate(stamp))
+				return value;
+
+			stamp = this.lock.readLock();
+
+			try {
+
+				return find(this.table, key, hash);
+
+			} finally {
+
+				this.lock.unlockRead(stamp);
+
+			}
+
+		}
+
+		/**
+		 * Bind a value to a key.
+		 * 
+		 * @param key          The key.
+		 * @param hash         The hash of the key.
+		 * @param value        The value.
+		 * @param onlyIfAbsent The truth value associated with keeping the current
+		 *                     value if the key is already bound.
+		 * 
+		 * @return The previous value, or null.
+		 */
+		@SuppressWarnings("unchecked")
+		private V put(long key, int hash, V value, boolean onlyIfAbsent) {
+
+			long stamp = this.lock.writeLock();
+
+			try {
+
+				Table table = this.table;
+				int mask = table.keys.length - 1;
+
+				for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+
+					Object current = table.values[slot];
+
+					if (current == null) {
+
+						table.keys[slot] = key;
+						table.values[slot] = value;
+
+						if (++this.size * 2 > table.keys.length)
+							this.resize();
+
+						return null;
+
+					}
+
+					if (table.keys[slot] == key) {
+
+						if (!onlyIfAbsent)
+							table.values[slot] = value;
+
+						return (V) current;
+
+					}
+
+				}
+
+			} finally {
+
+				this.lock.unlockWrite(stamp);
+
+			}
+
+		}
+
+		/**
+		 * Unbind a key.
+		 * 
+		 * @param key  The key.
+		 * @param hash The hash of the key.
+		 * 
+		 * @return The value that was bound to the key, or null.
+		 */
+		@SuppressWarnings("unchecked")
+		private V remove(long key, int hash) {
+
+			long stamp = this.lock.writeLock();
+
+			try {
+
+				Table table = this.table;
+				int mask = table.keys.length - 1;
+
+				for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+
+					Object current = table.values[slot];
+
+					if (current == null)
+						return null;
+
+					if (table.keys[slot] == key) {
+
+						this.size--;
+						this.shiftBack(table, slot);
+
+						return (V) current;
+
+					}
+
+				}
+
+			} finally {
+
+				this.lock.unlockWrite(stamp);
+
+			}
+
+		}
+
+		/**
+		 * Get the number of bound keys.
+		 * 
+		 * @return The number of bound keys.
+		 */
+		private int size() {
+
+			long stamp = this.lock.readLock();
+
+			try {
+
+				return this.size;
+
+			} finally {
+
+				this.lock.unlockRead(stamp);
+
+			}
+
+		}
+
+		/**
+		 * Unbind every key.
+		 */
+		private void clear() {
+
+			long stamp = this.lock.writeLock();
+
+			try {
+
+				this.table = new Table(INITIAL_CAPACITY);
+				this.size = 0;
+
+			} finally {
+
+				this.lock.unlockWrite(stamp);
+
+			}
+
+		}
+
+		/**
+		 * Pass a copy of every entry to a consumer.
+		 * 
+		 * @param consumer The consumer.
+		 */
+		@SuppressWarnings("unchecked")
+		private void forEach(EntryConsumer<? super V> consumer) {
+
+			long[] keys;
+			Object[] values;
+			long stamp = this.lock.readLock();
+
+			try {
+
+				keys = this.table.keys.clone();
+				values = this.table.values.clone();
+
+			} finally {
+
+				this.lock.unlockRead(stamp);
+
+			}
+
+			for (int i = 0; i < values.length; i++)
+				if (values[i] != null)
+					consumer.accept(keys[i], (V) values[i]);
+
+		}
+
+		/**
+		 * Double the capacity of the table.
+		 */
+		private void resize() {
+
+			Table old = this.table;
+			Table table = new Table(old.keys.length * 2);
+			int mask = table.keys.length - 1;
+
+			for (int i = 0; i < old.keys.length; i++) {
+
+				if (old.values[i] == null)
+					continue;
+
+				int slot = (int) hash(old.keys[i]) & mask;
+
+				while (table.values[slot] != null)
+					slot = (slot + 1) & mask;
+
+				table.keys[slot] = old.keys[i];
+				table.values[slot] = old.values[i];
+
+			}
+
+			this.table = table;
+
+		}
+
+		/**
+		 * Empty a slot, moving back the entries after it that would otherwise no
+		 * longer be reachable.
+		 * 
+		 * @param table The table.
+		 * @param slot  The slot to empty.
+		 */
+		private void shiftBack(Table table, int slot) {
+
+			int mask = table.keys.length - 1;
+			int gap = slot;
+
+			for (int next = (gap + 1) & mask; table.values[next] != null; next = (next + 1) & mask) {
+
+				int home = (int) hash(table.keys[next]) & mask;
+
+				// Move the entry if its home slot is not between the gap and its slot.
+				if (((next - home) & mask) >= ((next - gap) & mask)) {
+
+					table.keys[gap] = table.keys[next];
+					table.values[gap] = table.values[next];
+					gap = next;
+
+				}
+
+			}
+
+			table.values[gap] = null;
+
+		}
+
+		/**
+		 * Find a value in a table.
+		 * 
+		 * <p>
+		 * <strong>Note:</strong> This may run without the lock, so it must not assume
+		 * the table is consistent. The probe is bounded by the capacity so that it
+		 * always terminates.
+		 * </p>
+		 * 
+		 * @param table The table.
+		 * @param key   The key.
+		 * @param hash  The hash of the key.
+		 * 
+		 * @return The value, or null.
+		 */
+		@SuppressWarnings("unchecked")
+		private static <V> V find(Table table, long key, int hash) {
+
+			long[] keys = table.keys;
+			Object[] values = table.values;
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+
+			for (int i = 0; i <= mask; i++, slot = (slot + 1) & mask) {
+
+				Object value = values[slot];
+
+				if (value == null)
+					return null;
+
+				if (keys[slot] == key)
+					return (V) value;
+
+			}
+
+			return null;
+
+		}
+
+	}
+
+}
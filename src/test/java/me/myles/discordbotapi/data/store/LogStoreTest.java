@@ -0,0 +1,226 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link me.myles.discordbotapi.data.store.LogStore LogStore}.
+ * 
+ * @author Myles Deslippe
+ */
+public class LogStoreTest {
+
+	/**
+	 * The directory the store's file is kept in.
+	 */
+	private Path directory;
+
+	/**
+	 * The store's file.
+	 */
+	private Path path;
+
+	@Before
+	public void createDirectory() throws IOException {
+
+		this.directory = Files.createTempDirectory("LogStoreTest");
+		this.path = this.directory.resolve("store.log");
+
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+
+		try (Stream<Path> paths = Files.walk(this.directory)) {
+
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+
+		}
+
+	}
+
+	@Test
+	public void replaysChangesAfterReloading() throws Exception {
+
+		LogStore store = this.open();
+
+		store.putString("name", "bot").get();
+		store.putLong("count", 1);
+		store.putLong("count", 2);
+		store.putString("removed", "value");
+		store.remove("removed");
+		store.close();
+
+		store = this.open();
+
+		assertEquals("bot", store.getString("name"));
+		assertEquals(2, store.getLong("count", 0));
+		assertFalse(store.contains("removed"));
+		assertEquals(2, store.size());
+
+		store.close();
+
+	}
+
+	@Test
+	public void truncatesATornRecord() throws Exception {
+
+		LogStore store = this.open();
+
+		store.putString("kept", "value");
+		store.close();
+
+		long size = Files.size(this.path);
+
+		// A crash part way through a record leaves only its start behind.
+		try (OutputStream stream = Files.newOutputStream(this.path, StandardOpenOption.APPEND);
+				DataOutputStream output = new DataOutputStream(stream)) {
+
+			output.writeInt(0);
+			output.writeInt(4);
+			output.writeInt(100);
+			output.write(new byte[] { 'l', 'o', 's', 't', 1, 2, 3 });
+
+		}
+
+		store = this.open();
+
+		assertEquals(size, Files.size(this.path));
+		assertEquals("value", store.getString("kept"));
+		assertEquals(1, store.size());
+
+		// New records are appended where the torn record was.
+		store.putString("next", "value").get();
+		store.close();
+
+		store = this.open();
+
+		assertEquals("value", store.getString("kept"));
+		assertEquals("value", store.getString("next"));
+
+		store.close();
+
+	}
+
+	@Test
+	public void truncatesACorruptRecord() throws Exception {
+
+		LogStore store = this.open();
+
+		store.putString("key", "first");
+		store.close();
+
+		long size = Files.size(this.path);
+
+		store = this.open();
+		store.putString("key", "second");
+		store.close();
+
+		// Flip a byte of the last record's value so its checksum no longer matches.
+		byte[] bytes = Files.readAllBytes(this.path);
+		bytes[bytes.length - 1] ^= 0x01;
+		Files.write(this.path, bytes);
+
+		store = this.open();
+
+		assertEquals(size, Files.size(this.path));
+		assertEquals("first", store.getString("key"));
+
+		store.close();
+
+	}
+
+	@Test
+	public void compactsToTheLiveValues() throws Exception {
+
+		LogStore store = this.open();
+		store.setCompactionThreshold(Long.MAX_VALUE);
+
+		for (int i = 0; i < 1000; i++)
+			store.putLong("counter", i);
+
+		store.putString("removed", "value");
+		store.remove("removed");
+		store.flush();
+
+		long size = Files.size(this.path);
+
+		store.compact().get();
+
+		assertTrue(Files.size(this.path) < size / 100);
+		assertEquals(999, store.getLong("counter", -1));
+
+		// Changes made after compacting are appended to the compacted file.
+		store.putString("after", "value");
+		store.close();
+
+		store = this.open();
+
+		assertEquals(999, store.getLong("counter", -1));
+		assertEquals("value", store.getString("after"));
+		assertNull(store.get("removed"));
+		assertEquals(2, store.size());
+
+		store.close();
+
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsChangesAfterClosing() throws Exception {
+
+		LogStore store = this.open();
+		store.close();
+
+		store.putString("key", "value");
+
+	}
+
+	/**
+	 * Open and load the store.
+	 * 
+	 * @return The loaded store.
+	 * 
+	 * @throws IOException If the store could not be loaded.
+	 */
+	private LogStore open() throws IOException {
+
+		LogStore store = new LogStore(this.path);
+		store.load();
+		return store;
+
+	}
+
+}
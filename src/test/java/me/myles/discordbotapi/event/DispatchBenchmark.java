@@ -0,0 +1,192 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nonnull;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.GenericEvent;
+
+/**
+ * A microbenchmark that compares calling an
+ * {@link me.myles.discordbotapi.event.EventHandler EventHandler} method through
+ * reflection with calling it through the invoker bound by a
+ * {@link me.myles.discordbotapi.event.RegisteredHandler RegisteredHandler}.
+ * 
+ * <p>
+ * This is not a test, run it with:
+ * </p>
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; me.myles.discordbotapi.event.DispatchBenchmark [iterations] [rounds]
+ * </pre>
+ * 
+ * @author Myles Deslippe
+ */
+public final class DispatchBenchmark {
+
+	/**
+	 * The number of handler calls in a round.
+	 */
+	private static final int DEFAULT_ITERATIONS = 10_000_000;
+
+	/**
+	 * The number of measured rounds, after the same number of warm up rounds.
+	 */
+	private static final int DEFAULT_ROUNDS = 5;
+
+	/**
+	 * Prevent the benchmark from being instantiated.
+	 */
+	private DispatchBenchmark() {
+
+	}
+
+	/**
+	 * Run the benchmark.
+	 * 
+	 * @param args The number of iterations and rounds, both are optional.
+	 * 
+	 * @throws Exception If the handler could not be called.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+		CountingListener listener = new CountingListener();
+		Method method = CountingListener.class.getMethod("onEvent", BenchmarkEvent.class);
+		Executor inline = Runnable::run;
+		RegisteredHandler handler = new RegisteredHandler(listener, method, inline);
+		EventManager eventManager = new EventManager(inline);
+		GenericEvent event = new BenchmarkEvent();
+
+		eventManager.registerListener(listener);
+
+		for (int round = -rounds; round < rounds; round++) {
+
+			boolean measured = round >= 0;
+
+			long reflective = time(iterations, () -> method.invoke(listener, event));
+			long bound = time(iterations, () -> handler.invoke(event));
+			long dispatched = time(iterations, () -> eventManager.dispatchEvent(event));
+
+			if (measured)
+				System.out.printf("Round %d: reflective %.2f ns/op, bound %.2f ns/op, dispatched %.2f ns/op%n", round + 1,
+						(double) reflective / iterations, (double) bound / iterations,
+						(double) dispatched / iterations);
+
+		}
+
+		// Print the count so the calls can not be eliminated.
+		System.out.println("Handled " + listener.count + " events");
+
+	}
+
+	/**
+	 * Time a number of calls.
+	 * 
+	 * @param iterations The number of calls.
+	 * @param call       The call.
+	 * 
+	 * @return The number of nanoseconds the calls took.
+	 * 
+	 * @throws Exception If the call failed.
+	 */
+	private static long time(int iterations, @Nonnull Call call) throws Exception {
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < iterations; i++)
+			call.run();
+
+		return System.nanoTime() - start;
+
+	}
+
+	/**
+	 * A call that is timed by the benchmark.
+	 * 
+	 * @author Myles Deslippe
+	 */
+	@FunctionalInterface
+	private interface Call {
+
+		/**
+		 * Make the call.
+		 * 
+		 * @throws Exception If the call failed.
+		 */
+		void run() throws Exception;
+
+	}
+
+	/**
+	 * The listener whose handler is called by the benchmark.
+	 * 
+	 * @author Myles Deslippe
+	 */
+	public static final class CountingListener implements Listener {
+
+		/**
+		 * The number of events handled.
+		 */
+		private long count;
+
+		/**
+		 * Count an event.
+		 * 
+		 * @param event The event.
+		 */
+		@EventHandler
+		public void onEvent(BenchmarkEvent event) {
+
+			this.count++;
+
+		}
+
+	}
+
+	/**
+	 * The event passed to the handler by the benchmark.
+	 * 
+	 * @author Myles Deslippe
+	 */
+	public static final class BenchmarkEvent implements GenericEvent {
+
+		@Override
+		public JDA getJDA() {
+
+			return null;
+
+		}
+
+		@Override
+		public long getResponseNumber() {
+
+			return 0;
+
+		}
+
+	}
+
+}
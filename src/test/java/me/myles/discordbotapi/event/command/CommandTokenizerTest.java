@@ -0,0 +1,163 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link me.myles.discordbotapi.event.command.CommandTokenizer
+ * CommandTokenizer}.
+ * 
+ * @author Myles Deslippe
+ */
+public class CommandTokenizerTest {
+
+	@Test
+	public void splitsOnEverySpaceByDefault() {
+
+		CommandTokenizer tokenizer = new CommandTokenizer();
+
+		assertTokens(tokenizer, "!ban  user reason ", "ban", "", "user", "reason");
+		assertTokens(tokenizer, "!ban \"a b\"", "ban", "\"a", "b\"");
+
+	}
+
+	@Test
+	public void matchesStringSplit() {
+
+		CommandTokenizer tokenizer = new CommandTokenizer();
+		String[] contents = { "!a", "!a b", "!a  b", "!a b  ", "!a   b c   d", "!a \\ b" };
+
+		for (String content : contents)
+			assertArrayEquals(content, content.substring(1).split(" "), values(tokenizer.tokenize(content, "!")));
+
+	}
+
+	@Test
+	public void growsPastTheInitialBuffer() {
+
+		StringBuilder content = new StringBuilder("!label");
+		String[] expected = new String[101];
+		expected[0] = "label";
+
+		for (int i = 1; i < expected.length; i++) {
+
+			content.append(' ').append(i);
+			expected[i] = String.valueOf(i);
+
+		}
+
+		assertArrayEquals(expected, values(new CommandTokenizer().tokenize(content.toString(), "!")));
+		assertArrayEquals(expected, values(new CommandTokenizer(true, true).tokenize(content.toString(), "!")));
+
+	}
+
+	@Test
+	public void rejectsContentWithoutACommand() {
+
+		CommandTokenizer tokenizer = new CommandTokenizer(true, true);
+
+		assertNull(tokenizer.tokenize("hello", "!"));
+		assertNull(tokenizer.tokenize("!", "!"));
+		assertNull(tokenizer.tokenize("! ban", "!"));
+
+	}
+
+	@Test
+	public void groupsQuotedTokens() {
+
+		CommandTokenizer tokenizer = new CommandTokenizer(true, false);
+
+		assertTokens(tokenizer, "!say \"hello world\"  again", "say", "hello world", "again");
+		assertTokens(tokenizer, "!say \"\" x", "say", "", "x");
+		assertTokens(tokenizer, "!say\t\"tab\tinside\"\n next", "say", "tab\tinside", "next");
+
+	}
+
+	@Test
+	public void runsAnUnterminatedQuoteToTheEnd() {
+
+		assertTokens(new CommandTokenizer(true, false), "!say \"hello world", "say", "hello world");
+
+	}
+
+	@Test
+	public void ignoresBackslashesWhenEscapingIsDisabled() {
+
+		assertTokens(new CommandTokenizer(true, false), "!say a\\ b", "say", "a\\", "b");
+
+	}
+
+	@Test
+	public void escapesCharacters() {
+
+		CommandTokenizer tokenizer = new CommandTokenizer(true, true);
+
+		assertTokens(tokenizer, "!say a\\ b", "say", "a b");
+		assertTokens(tokenizer, "!say \"a \\\"quoted\\\" word\"", "say", "a \"quoted\" word");
+		assertTokens(tokenizer, "!say \\\\", "say", "\\");
+		assertTokens(tokenizer, "!say end\\", "say", "end\\");
+
+	}
+
+	@Test
+	public void escapesSpacesWithoutQuoting() {
+
+		assertTokens(new CommandTokenizer(false, true), "!say a\\ b c", "say", "a b", "c");
+
+	}
+
+	/**
+	 * Assert that content tokenizes to the expected values.
+	 * 
+	 * @param tokenizer The tokenizer.
+	 * @param content   The content, starting with a "!" prefix.
+	 * @param expected  The expected values.
+	 */
+	private static void assertTokens(CommandTokenizer tokenizer, String content, String... expected) {
+
+		assertArrayEquals(content, expected, values(tokenizer.tokenize(content, "!")));
+
+	}
+
+	/**
+	 * Get the values of tokens.
+	 * 
+	 * @param tokens The tokens.
+	 * 
+	 * @return The values.
+	 */
+	private static String[] values(CommandTokens tokens) {
+
+		assertNotNull(tokens);
+
+		String[] values = new String[tokens.size()];
+
+		for (int i = 0; i < values.length; i++)
+			values[i] = tokens.get(i);
+
+		return values;
+
+	}
+
+}
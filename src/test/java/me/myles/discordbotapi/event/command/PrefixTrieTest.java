@@ -0,0 +1,117 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link me.myles.discordbotapi.event.command.PrefixTrie
+ * PrefixTrie}.
+ * 
+ * @author Myles Deslippe
+ */
+public class PrefixTrieTest {
+
+	@Test
+	public void matchesASinglePrefix() {
+
+		PrefixTrie trie = new PrefixTrie(new String[] { "!" });
+
+		assertEquals(1, trie.match("!help"));
+		assertEquals(-1, trie.match("?help"));
+		assertEquals(-1, trie.match("help"));
+		assertEquals(-1, trie.match(""));
+
+	}
+
+	@Test
+	public void prefersTheLongestPrefix() {
+
+		PrefixTrie trie = new PrefixTrie(new String[] { "!", "!!", "bot ", "bot" });
+
+		assertEquals(2, trie.match("!!help"));
+		assertEquals(1, trie.match("!help"));
+		assertEquals(4, trie.match("bot help"));
+		assertEquals(3, trie.match("bothelp"));
+
+	}
+
+	@Test
+	public void fallsBackToAShorterPrefixWithoutALabel() {
+
+		PrefixTrie trie = new PrefixTrie(new String[] { "!", "!!" });
+
+		// "!!" is not followed by a label, but "!" is followed by "!".
+		assertEquals(1, trie.match("!!"));
+		assertEquals(1, trie.match("!! help"));
+
+	}
+
+	@Test
+	public void requiresALabelAfterThePrefix() {
+
+		PrefixTrie trie = new PrefixTrie(new String[] { "!" });
+
+		assertEquals(-1, trie.match("!"));
+		assertEquals(-1, trie.match("! help"));
+		assertEquals(-1, trie.match("!\thelp"));
+
+	}
+
+	@Test
+	public void stopsAtTheFirstUnknownCharacter() {
+
+		PrefixTrie trie = new PrefixTrie(new String[] { "abc", "ab" });
+
+		assertEquals(2, trie.match("abx"));
+		assertEquals(3, trie.match("abcd"));
+		assertEquals(-1, trie.match("axc"));
+
+	}
+
+	@Test
+	public void matchesAnEmptyPrefix() {
+
+		PrefixTrie trie = new PrefixTrie(new String[] { "", "!" });
+
+		assertEquals(0, trie.match("help"));
+		assertEquals(1, trie.match("!help"));
+		assertEquals(-1, trie.match(" help"));
+
+	}
+
+	@Test
+	public void copiesItsPrefixes() {
+
+		String[] prefixes = { "!", "?" };
+		PrefixTrie trie = new PrefixTrie(prefixes);
+
+		prefixes[0] = "$";
+		trie.getPrefixes()[1] = "$";
+
+		assertArrayEquals(new String[] { "!", "?" }, trie.getPrefixes());
+		assertEquals(1, trie.match("!help"));
+		assertEquals(-1, trie.match("$help"));
+
+	}
+
+}
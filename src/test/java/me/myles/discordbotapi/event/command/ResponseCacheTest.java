@@ -0,0 +1,155 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.event.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * Tests for the {@link me.myles.discordbotapi.event.command.ResponseCache
+ * ResponseCache}.
+ * 
+ * @author Myles Deslippe
+ */
+public class ResponseCacheTest {
+
+	/**
+	 * A command that caches its responses.
+	 */
+	private final Command command = new TestCommand("stats");
+
+	@Test
+	public void countsHitsAndMisses() {
+
+		ResponseCache cache = new ResponseCache(10, 1, TimeUnit.HOURS);
+
+		assertNull(cache.get(this.command, 1, ""));
+
+		cache.put(this.command, 1, "", "response");
+
+		assertEquals("response", cache.get(this.command, 1, ""));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+	}
+
+	@Test
+	public void keysByCommandScopeAndArguments() {
+
+		ResponseCache cache = new ResponseCache(10, 1, TimeUnit.HOURS);
+		Command other = new TestCommand("stats");
+
+		cache.put(this.command, 1, "week", "response");
+
+		assertNull(cache.get(other, 1, "week"));
+		assertNull(cache.get(this.command, 2, "week"));
+		assertNull(cache.get(this.command, 1, "month"));
+		assertEquals("response", cache.get(this.command, 1, "week"));
+
+	}
+
+	@Test
+	public void expiresResponses() {
+
+		ResponseCache cache = new ResponseCache(10, 0, TimeUnit.NANOSECONDS);
+
+		cache.put(this.command, 1, "", "response");
+
+		assertNull(cache.get(this.command, 1, ""));
+		assertEquals(0, cache.size());
+
+	}
+
+	@Test
+	public void evictsTheLeastRecentlyUsedResponse() {
+
+		ResponseCache cache = new ResponseCache(2, 1, TimeUnit.HOURS);
+
+		cache.put(this.command, 1, "", "first");
+		cache.put(this.command, 2, "", "second");
+
+		// Reading the first response makes the second the least recently used.
+		cache.get(this.command, 1, "");
+		cache.put(this.command, 3, "", "third");
+
+		assertEquals(2, cache.size());
+		assertEquals("first", cache.get(this.command, 1, ""));
+		assertNull(cache.get(this.command, 2, ""));
+		assertEquals("third", cache.get(this.command, 3, ""));
+
+	}
+
+	@Test
+	public void invalidatesEveryResponse() {
+
+		ResponseCache cache = new ResponseCache(10, 1, TimeUnit.HOURS);
+
+		cache.put(this.command, 1, "", "response");
+		cache.invalidateAll();
+
+		assertEquals(0, cache.size());
+		assertNull(cache.get(this.command, 1, ""));
+
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnEmptyCapacity() {
+
+		new ResponseCache(0, 1, TimeUnit.HOURS);
+
+	}
+
+	/**
+	 * A command that does nothing.
+	 */
+	private static final class TestCommand extends Command {
+
+		/**
+		 * Create a test command.
+		 * 
+		 * @param name The name of the command.
+		 */
+		private TestCommand(String name) {
+
+			super(name);
+
+		}
+
+		@Override
+		public void onCommand(Guild guild, MessageChannel channel, User executor, String label, String[] args) {
+
+		}
+
+		@Override
+		public void onPermissionDenied(Guild guild, MessageChannel channel, User executor, String label,
+				String[] args) {
+
+		}
+
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * 
+ * Copyright 2021 Myles Deslippe
+ *
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package me.myles.discordbotapi.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link me.myles.discordbotapi.utils.ConcurrentLongMap
+ * ConcurrentLongMap}.
+ * 
+ * @author Myles Deslippe
+ */
+public class ConcurrentLongMapTest {
+
+	@Test
+	public void bindsAndReplacesValues() {
+
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+
+		assertNull(map.put(1, "a"));
+		assertEquals("a", map.put(1, "b"));
+		assertEquals("b", map.putIfAbsent(1, "c"));
+		assertNull(map.putIfAbsent(2, "d"));
+		assertEquals("b", map.get(1));
+		assertEquals("d", map.get(2));
+		assertEquals(2, map.size());
+
+	}
+
+	@Test
+	public void bindsExtremeKeys() {
+
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+
+		map.put(0, "zero");
+		map.put(Long.MIN_VALUE, "min");
+		map.put(Long.MAX_VALUE, "max");
+		map.put(-1, "negative");
+
+		assertEquals("zero", map.get(0));
+		assertEquals("min", map.get(Long.MIN_VALUE));
+		assertEquals("max", map.get(Long.MAX_VALUE));
+		assertEquals("negative", map.get(-1));
+
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void rejectsNullValues() {
+
+		new ConcurrentLongMap<String>().put(1, null);
+
+	}
+
+	@Test
+	public void keepsTheRestOfAClusterAfterARemoval() {
+
+		ConcurrentLongMap<Long> map = new ConcurrentLongMap<Long>();
+		int count = 5000;
+
+		for (long key = 0; key < count; key++)
+			map.put(key, key);
+
+		// Removing every other key shifts the entries probed past each removed slot
+		// back, and every survivor must still be found.
+		for (long key = 0; key < count; key += 2)
+			assertEquals(Long.valueOf(key), map.remove(key));
+
+		assertEquals(count / 2, map.size());
+
+		for (long key = 0; key < count; key++)
+			if (key % 2 == 0)
+				assertFalse(map.containsKey(key));
+			else
+				assertEquals(Long.valueOf(key), map.get(key));
+
+		for (long key = 0; key < count; key += 2)
+			assertNull(map.put(key, -key));
+
+		for (long key = 0; key < count; key++)
+			assertEquals(Long.valueOf(key % 2 == 0 ? -key : key), map.get(key));
+
+	}
+
+	@Test
+	public void removesMissingKeys() {
+
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+
+		map.put(1, "a");
+
+		assertNull(map.remove(2));
+		assertEquals("a", map.remove(1));
+		assertNull(map.remove(1));
+		assertTrue(map.isEmpty());
+
+	}
+
+	@Test
+	public void matchesAHashMap() {
+
+		ConcurrentLongMap<Integer> map = new ConcurrentLongMap<Integer>();
+		Map<Long, Integer> expected = new HashMap<Long, Integer>();
+		Random random = new Random(42);
+
+		// A small key space keeps the clusters dense, so removals shift often.
+		for (int i = 0; i < 200000; i++) {
+
+			long key = random.nextInt(512);
+
+			switch (random.nextInt(3)) {
+
+			case 0:
+
+				assertEquals(expected.put(key, i), map.put(key, i));
+				break;
+
+			case 1:
+
+				assertEquals(expected.remove(key), map.remove(key));
+				break;
+
+			default:
+
+				assertEquals(expected.get(key), map.get(key));
+				break;
+
+			}
+
+		}
+
+		assertEquals(expected.size(), map.size());
+
+		Map<Long, Integer> visited = new HashMap<Long, Integer>();
+		map.forEach(visited::put);
+
+		assertEquals(expected, visited);
+
+	}
+
+	@Test
+	public void clearsEveryKey() {
+
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+
+		for (long key = 0; key < 100; key++)
+			map.put(key, "value");
+
+		map.clear();
+
+		assertTrue(map.isEmpty());
+		assertNull(map.get(5));
+
+	}
+
+}